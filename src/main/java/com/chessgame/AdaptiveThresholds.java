@@ -0,0 +1,106 @@
+package com.chessgame;
+
+/**
+ * Per-square change thresholds learned from the scores of frames where nothing moved.
+ *
+ * Each square keeps an exponentially weighted mean and variance of its intensity and edge
+ * scores on idle frames, so the statistics follow slow lighting changes. Once enough idle
+ * frames have been seen, a square's threshold is mean + K * stddev, never below the tuned base
+ * threshold and never above CEILING times it. Noisy squares (glare, a flickering lamp, dim
+ * light) thereby raise their own bar; this replaces the old manual low/mid/high light switch.
+ *
+ * An idle sample is capped at the square's current threshold before it is learned, so a hand
+ * or a rejected move that slips into an idle frame only nudges the statistics.
+ *
+ * Not thread-safe; owned by a ChangeDetector and used from its detection thread.
+ */
+public class AdaptiveThresholds {
+
+    private static final double ALPHA = 0.05;     // EWMA weight, ~20-frame memory
+    private static final double K = 4.0;          // stddevs above the idle mean
+    private static final double CEILING = 2.0;    // thresholds stay within [base, 2 * base]
+    private static final int MIN_SAMPLES = 20;    // idle frames before adapting at all
+
+    private final double[] baseIntensity;
+    private final double[] baseEdge;
+
+    private final double[] meanIntensity = new double[64];
+    private final double[] varIntensity = new double[64];
+    private final double[] meanEdge = new double[64];
+    private final double[] varEdge = new double[64];
+    private final double[] intensity = new double[64];
+    private final double[] edge = new double[64];
+    private int samples = 0;
+
+    /** @param baseIntensity / baseEdge the fixed thresholds per square (sq = row * 8 + col) */
+    public AdaptiveThresholds(double[] baseIntensity, double[] baseEdge) {
+        this.baseIntensity = baseIntensity.clone();
+        this.baseEdge = baseEdge.clone();
+        reset();
+    }
+
+    public double intensity(int sq) {
+        return intensity[sq];
+    }
+
+    public double edge(int sq) {
+        return edge[sq];
+    }
+
+    /** Number of idle frames learned since the last reset. */
+    public int getSamples() {
+        return samples;
+    }
+
+    public boolean isAdapting() {
+        return samples >= MIN_SAMPLES;
+    }
+
+    /** Forgets everything learned, e.g. after recalibrating on a new camera position. */
+    public void reset() {
+        samples = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            meanIntensity[sq] = 0;
+            varIntensity[sq] = 0;
+            meanEdge[sq] = 0;
+            varEdge[sq] = 0;
+            intensity[sq] = baseIntensity[sq];
+            edge[sq] = baseEdge[sq];
+        }
+    }
+
+    /** Learns the scores of a frame the caller knows contains no move. */
+    public void observeIdle(ChangeReport report) {
+        samples++;
+        for (int sq = 0; sq < 64; sq++) {
+            float i = report.intensity(sq);
+            float e = report.edge(sq);
+            if (Float.isNaN(i) || Float.isNaN(e)) continue; // square falls outside the warp
+
+            if (samples == 1) {
+                meanIntensity[sq] = Math.min(i, intensity[sq]);
+                meanEdge[sq] = Math.min(e, edge[sq]);
+            } else {
+                learn(meanIntensity, varIntensity, sq, Math.min(i, intensity[sq]));
+                learn(meanEdge, varEdge, sq, Math.min(e, edge[sq]));
+            }
+
+            if (isAdapting()) {
+                intensity[sq] = threshold(meanIntensity[sq], varIntensity[sq], baseIntensity[sq]);
+                edge[sq] = threshold(meanEdge[sq], varEdge[sq], baseEdge[sq]);
+            }
+        }
+    }
+
+    private static void learn(double[] mean, double[] var, int sq, double x) {
+        double diff = x - mean[sq];
+        double increment = ALPHA * diff;
+        mean[sq] += increment;
+        var[sq] = (1 - ALPHA) * (var[sq] + diff * increment);
+    }
+
+    private static double threshold(double mean, double var, double base) {
+        double adaptive = mean + K * Math.sqrt(var);
+        return Math.min(CEILING * base, Math.max(base, adaptive));
+    }
+}
@@ -0,0 +1,82 @@
+package com.chessgame;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Base for the backends that work on the whole playing area at once (the squares' bounding
+ * box, not the wooden border) instead of square by square.
+ *
+ * The reference keeps one blurred area and one edge map from lock-in; per tick the current
+ * board goes through gray, blur and Canny once, into blurAfter / edgesAfter. Subclasses only
+ * turn the two pairs of maps into 64 score pairs. Blur and Canny see real neighbours at square
+ * borders instead of a reflected edge, so scores differ slightly from SquareChangeDetector near
+ * the rim of each square; the inset keeps that small, and the same thresholds apply.
+ */
+public abstract class AreaChangeDetector extends ChangeDetector {
+
+    protected final Rect area;  // playing area inside the warp
+
+    private final Mat grayAfter = buffer();
+    private Mat areaAfter;      // ROI header over grayAfter, made on first call
+    protected final Mat blurAfter = buffer();
+    protected final Mat edgesAfter = buffer();
+
+    protected AreaChangeDetector(BoardGeometry geometry) {
+        super(geometry);
+        Rect first = strictRects[0];
+        Rect last = strictRects[63];
+        this.area = new Rect(first.x, first.y, last.x + last.width - first.x, last.y + last.height - first.y);
+    }
+
+    protected boolean containsArea(Mat warped) {
+        return area.x >= 0 && area.y >= 0
+                && area.x + area.width <= warped.cols() && area.y + area.height <= warped.rows();
+    }
+
+    @Override
+    protected ReferenceBoard buildReference(Mat warped) {
+        Mat[] blurred = new Mat[1];
+        Mat[] edges = new Mat[1];
+        Mat gray = new Mat();
+        computeFeatures(warped, gray, blurred, edges);
+        gray.release();
+        return new ReferenceBoard(this, warped, blurred, edges);
+    }
+
+    @Override
+    protected void computeFeatures(Mat warped, Mat gray, Mat[] blurred, Mat[] edges) {
+        if (!containsArea(warped)) return;
+        Imgproc.cvtColor(warped, gray, Imgproc.COLOR_BGR2GRAY);
+        Mat roi = gray.submat(area);
+        if (blurred[0] == null) {
+            blurred[0] = new Mat();
+            edges[0] = new Mat();
+        }
+        Imgproc.GaussianBlur(roi, blurred[0], blurSize, 0);
+        Imgproc.Canny(blurred[0], edges[0], 40, 100);
+        roi.release();
+    }
+
+    /**
+     * Gray, blur and Canny of the current board's playing area into blurAfter / edgesAfter,
+     * the same way the reference side was computed. Caller checks containsArea first.
+     */
+    protected final void computeAreaFeatures(Mat warpedAfter) {
+        Imgproc.cvtColor(warpedAfter, grayAfter, Imgproc.COLOR_BGR2GRAY);
+        if (areaAfter == null) {
+            areaAfter = grayAfter.submat(area);
+            countAllocations(1);
+        }
+        // Blur reads real pixels just outside the area instead of reflecting at its edge
+        Imgproc.GaussianBlur(areaAfter, blurAfter, blurSize, 0);
+        Imgproc.Canny(blurAfter, edgesAfter, 40, 100);
+    }
+
+    @Override
+    public void release() {
+        if (areaAfter != null) areaAfter.release();
+        super.release();
+    }
+}
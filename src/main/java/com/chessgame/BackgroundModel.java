@@ -0,0 +1,52 @@
+package com.chessgame;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Exponentially weighted running average of the warped board, used as the "before" image
+ * instead of one frozen snapshot so slow daylight drift is absorbed between moves.
+ *
+ * The average is kept per pixel in float (an 8-bit blend would round small drifts away) and
+ * is only fed frames the caller judged static and unchanged; a move re-seeds it from the
+ * accepted frame. Not thread-safe; VisionPipeline guards it together with the reference.
+ */
+public class BackgroundModel {
+
+    private final double alpha;
+    private final Mat model = new Mat();     // CV_32FC3 running average
+    private final Mat snapshot = new Mat();  // model rounded back to 8 bit
+
+    /** @param alpha weight of each new frame, e.g. 0.05 for a ~20-frame memory */
+    public BackgroundModel(double alpha) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("alpha must be in (0, 1], got " + alpha);
+        }
+        this.alpha = alpha;
+    }
+
+    /** Starts over from this frame, e.g. a freshly accepted position. */
+    public void reset(Mat warped) {
+        warped.convertTo(model, CvType.CV_32F);
+    }
+
+    /**
+     * Blends a static, unchanged frame into the average.
+     * @return the updated background as an 8-bit image, valid until the next call
+     */
+    public Mat update(Mat warped) {
+        Imgproc.accumulateWeighted(warped, model, alpha);
+        model.convertTo(snapshot, CvType.CV_8U);
+        return snapshot;
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public void release() {
+        model.release();
+        snapshot.release();
+    }
+}
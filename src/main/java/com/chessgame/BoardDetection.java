@@ -0,0 +1,241 @@
+package com.chessgame;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the outer board corners in a camera frame by trying detection strategies in order,
+ * fast to slow, and scoring what each one finds.
+ *
+ * The first strategy whose corners reach the acceptance confidence wins and the slower ones
+ * never run; if none does, the best-scoring result of all of them is returned. Confidence is
+ * computed here, the same way whatever strategy found the corners, so results are comparable
+ * and a fast strategy that latched onto the wrong rectangle (a table edge, a sheet of paper)
+ * falls through to the next one instead of miscalibrating the game.
+ *
+ * The cascade comes from -Dchess.boardStrategies (default contours):
+ *   hough    - HoughBoardStrategy, outermost long straight lines, ~20-30 ms
+ *   contours - BoardDetector.findBoardCorners, multi-threshold contour search, ~40-50 ms
+ * and the acceptance confidence from -Dchess.boardAccept (default 0.6). hough,contours puts the
+ * line search in front as a fast path, but a frame hough gets wrong costs both: on the bundled
+ * test images it settles 4% of frames and the cascade's p50 is 68 ms against 39 ms for contours
+ * alone (BoardDetectionBenchmark), so it stays opt-in until its rejection improves.
+ *
+ * detect() may be called from any thread; strategies keep no state between calls.
+ */
+public class BoardDetection {
+
+    public interface Strategy {
+        String name();
+
+        /** Outer corners (TL, TR, BR, BL) in frame pixels, or null. Draws on debugImg unless it's null. */
+        Point[] findCorners(Mat frame, Mat debugImg);
+    }
+
+    /** The multi-threshold contour search, the most reliable and the slowest. */
+    public static final Strategy CONTOURS = new Strategy() {
+        @Override
+        public String name() {
+            return "contours";
+        }
+
+        @Override
+        public Point[] findCorners(Mat frame, Mat debugImg) {
+            return BoardDetector.findBoardCorners(frame, debugImg);
+        }
+    };
+
+    public static final Strategy HOUGH = new HoughBoardStrategy();
+
+    public static final double DEFAULT_ACCEPT = 0.6;
+
+    // The quad checks run at the contour search's processing width, the square checks on a
+    // small warp (a square is ~28 px, plenty for its mean brightness)
+    private static final double CHECK_WIDTH = 600.0;
+    private static final BoardGeometry PARITY_GEOMETRY = BoardGeometry.detection(BoardGeometry.DEFAULT_DETECTION_WIDTH);
+
+    /** What one detect() call found, and which strategy found it. */
+    public static final class Result {
+        private final Point[] corners;
+        private final double confidence;
+        private final String strategy;
+        private final int attempts;
+
+        Result(Point[] corners, double confidence, String strategy, int attempts) {
+            this.corners = corners;
+            this.confidence = confidence;
+            this.strategy = strategy;
+            this.attempts = attempts;
+        }
+
+        /** Outer corners TL, TR, BR, BL, or null if no strategy found a board. */
+        public Point[] getCorners() {
+            return corners == null ? null : corners.clone();
+        }
+
+        /** 0 (nothing, or not a board) to 1 (clear checkerboard inside a sound quadrilateral). */
+        public double getConfidence() {
+            return confidence;
+        }
+
+        /** Name of the strategy that found the corners, or null if none did. */
+        public String getStrategy() {
+            return strategy;
+        }
+
+        /** How many strategies ran before this result was settled. */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        @Override
+        public String toString() {
+            return strategy == null ? "no board"
+                    : String.format("%s (confidence %.2f, %d attempt%s)", strategy, confidence, attempts, attempts == 1 ? "" : "s");
+        }
+    }
+
+    private final List<Strategy> strategies;
+    private final double accept;
+
+    public BoardDetection(List<Strategy> strategies, double accept) {
+        if (strategies.isEmpty()) throw new IllegalArgumentException("at least one strategy is needed");
+        if (accept < 0 || accept > 1) throw new IllegalArgumentException("accept must be in [0, 1], got " + accept);
+        this.strategies = Collections.unmodifiableList(new ArrayList<>(strategies));
+        this.accept = accept;
+    }
+
+    /** The cascade from -Dchess.boardStrategies and -Dchess.boardAccept. */
+    public static BoardDetection create() {
+        List<Strategy> cascade = new ArrayList<>();
+        for (String name : System.getProperty("chess.boardStrategies", "contours").split(",")) {
+            cascade.add(strategy(name.trim()));
+        }
+        return new BoardDetection(cascade,
+                Double.parseDouble(System.getProperty("chess.boardAccept", String.valueOf(DEFAULT_ACCEPT))));
+    }
+
+    public static Strategy strategy(String name) {
+        switch (name) {
+            case "hough":
+                return HOUGH;
+            case "contours":
+                return CONTOURS;
+            default:
+                throw new IllegalArgumentException("Unknown board detection strategy: " + name);
+        }
+    }
+
+    public List<Strategy> getStrategies() {
+        return strategies;
+    }
+
+    public double getAccept() {
+        return accept;
+    }
+
+    public Result detect(Mat frame) {
+        return detect(frame, null);
+    }
+
+    /** Runs the cascade; every strategy that runs draws on debugImg unless it's null. */
+    public Result detect(Mat frame, Mat debugImg) {
+        Result best = new Result(null, 0, null, 0);
+        int attempts = 0;
+        for (Strategy strategy : strategies) {
+            attempts++;
+            Point[] corners = strategy.findCorners(frame, debugImg);
+            double confidence = confidence(frame, corners);
+            if (DebugArtifacts.isEnabled()) {
+                System.out.println("Board strategy " + strategy.name() + ": "
+                        + (corners == null ? "nothing found" : String.format("confidence %.2f", confidence)));
+            }
+            if (corners != null && (best.corners == null || confidence > best.confidence)) {
+                best = new Result(corners, confidence, strategy.name(), attempts);
+            }
+            if (confidence >= accept) break;
+        }
+        return new Result(best.corners, best.confidence, best.strategy, attempts);
+    }
+
+    /**
+     * How much these corners look like the board, whoever found them. 0 unless they form a
+     * plausible quadrilateral (BoardDetector's side-ratio and angle checks); otherwise the
+     * frame is warped with them the way the game will warp it, and the squares are checked:
+     *   alternation - of all pairs of neighbouring squares, the share whose core (the middle
+     *                 half) brightness order agrees with the checkerboard parity, rescaled so
+     *                 half agreeing (a quad around something else) is 0 and all agreeing is 1
+     *   alignment   - contrast of the whole squares over that of their cores; a grid off by a
+     *                 quarter square still alternates, but its squares take in a quarter of
+     *                 their neighbours and lose about half their contrast
+     * Confidence is the product. Pieces and glare keep the real board below 1, ~0.65-0.85 on
+     * the test images.
+     */
+    public static double confidence(Mat frame, Point[] corners) {
+        if (corners == null) return 0;
+        double scale = Math.min(1.0, CHECK_WIDTH / frame.width());
+        Point[] scaled = new Point[4];
+        for (int i = 0; i < 4; i++) {
+            scaled[i] = new Point(corners[i].x * scale, corners[i].y * scale);
+        }
+        if (!BoardDetector.isValidQuadrilateral(scaled)
+                || !BoardDetector.hasReasonableAngles(BoardDetector.orderPoints(scaled))) {
+            return 0;
+        }
+
+        Mat matrix = BoardWarp.standardMatrix(corners, PARITY_GEOMETRY);
+        Mat warped = new Mat();
+        Imgproc.warpPerspective(frame, warped, matrix, new Size(PARITY_GEOMETRY.getWidth(), PARITY_GEOMETRY.getHeight()));
+        Imgproc.cvtColor(warped, warped, Imgproc.COLOR_BGR2GRAY);
+        int coreInset = (int) (PARITY_GEOMETRY.getSquareSize() / 4);
+        double[][] core = new double[8][8];
+        double[][] whole = new double[8][8];
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                core[row][col] = regionMean(warped, PARITY_GEOMETRY.strictSquareRect(row, col, coreInset));
+                whole[row][col] = regionMean(warped, PARITY_GEOMETRY.strictSquareRect(row, col, 1));
+            }
+        }
+        matrix.release();
+        warped.release();
+
+        // Light squares are (row + col) even or odd depending on the board's rotation in the
+        // frame; either way every neighbour pair should differ the same way round
+        int agree = 0;
+        int pairs = 0;
+        double coreContrast = 0;
+        double wholeContrast = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                double parity = (row + col) % 2 == 0 ? 1 : -1;
+                for (int[] next : new int[][]{{row, col + 1}, {row + 1, col}}) {
+                    if (next[0] > 7 || next[1] > 7) continue;
+                    double coreStep = (core[row][col] - core[next[0]][next[1]]) * parity;
+                    if (coreStep > 0) agree++;
+                    pairs++;
+                    coreContrast += coreStep;
+                    wholeContrast += (whole[row][col] - whole[next[0]][next[1]]) * parity;
+                }
+            }
+        }
+        double alternation = Math.abs(2.0 * agree / pairs - 1);
+        // Square edges bleeding into their neighbours wash out the whole squares, not the cores
+        double alignment = coreContrast == 0 ? 0 : Math.max(0, Math.min(1, wholeContrast / coreContrast));
+        return alternation * alignment;
+    }
+
+    private static double regionMean(Mat gray, Rect rect) {
+        Mat roi = gray.submat(rect);
+        double mean = Core.mean(roi).val[0];
+        roi.release();
+        return mean;
+    }
+}
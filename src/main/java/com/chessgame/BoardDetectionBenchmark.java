@@ -0,0 +1,134 @@
+package com.chessgame;
+
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs every board detection strategy on its own, and then the BoardDetection cascade, over
+ * all test images and reports per strategy:
+ *   latency  - findCorners alone (the confidence check is timed with the cascade only)
+ *   hit rate - images where it found corners with at least the acceptance confidence
+ *   conf     - mean confidence over the images where it found anything
+ * and for the cascade how often the fast path settled it, and which strategy won.
+ * There is no ground truth for the images; a hit is what the cascade would accept.
+ *
+ * Usage: BoardDetectionBenchmark [directory] [repeats]
+ * The strategies are those of -Dchess.boardStrategies; pass hough,contours to compare the
+ * Hough fast path against the default contour search.
+ */
+public class BoardDetectionBenchmark {
+
+    static {
+        OpenCV.loadLocally();
+    }
+
+    public static void main(String[] args) {
+        File root = new File(args.length > 0 ? args[0] : "src/main/resources/tests");
+        int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        List<File> images = new ArrayList<>();
+        collectImages(root, images);
+        if (images.isEmpty()) {
+            System.err.println("No .jpg images under " + root);
+            return;
+        }
+        BoardDetection cascade = BoardDetection.create();
+        System.out.println("=== BOARD DETECTION BENCHMARK: " + images.size() + " images under " + root
+                + ", " + repeats + " repeat(s), accept " + cascade.getAccept() + " ===");
+
+        List<Row> rows = new ArrayList<>();
+        for (BoardDetection.Strategy strategy : cascade.getStrategies()) {
+            rows.add(new Row(strategy.name(), images.size() * repeats));
+        }
+        Row cascadeRow = new Row("cascade", images.size() * repeats);
+        Map<String, Integer> winners = new LinkedHashMap<>();
+        int settledFirst = 0;
+
+        // The strategies log every contour and line they look at; keep that out of the timings
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (File file : images) {
+                Mat frame = Imgcodecs.imread(file.getPath());
+                if (frame.empty()) continue;
+                for (int r = 0; r < repeats; r++) {
+                    for (int i = 0; i < rows.size(); i++) {
+                        BoardDetection.Strategy strategy = cascade.getStrategies().get(i);
+                        long start = System.nanoTime();
+                        Point[] corners = strategy.findCorners(frame, null);
+                        long elapsed = System.nanoTime() - start;
+                        rows.get(i).record(elapsed, corners, BoardDetection.confidence(frame, corners), cascade.getAccept());
+                    }
+
+                    long start = System.nanoTime();
+                    BoardDetection.Result result = cascade.detect(frame);
+                    long elapsed = System.nanoTime() - start;
+                    cascadeRow.record(elapsed, result.getCorners(), result.getConfidence(), cascade.getAccept());
+                    if (result.getConfidence() >= cascade.getAccept() && result.getAttempts() == 1) settledFirst++;
+                    winners.merge(result.getStrategy() == null ? "none" : result.getStrategy(), 1, Integer::sum);
+                }
+                frame.release();
+            }
+        } finally {
+            System.setOut(out);
+        }
+
+        for (Row row : rows) System.out.println(row.report());
+        System.out.println(cascadeRow.report());
+        System.out.printf("Cascade settled by %s alone: %d of %d | result from %s%n",
+                cascade.getStrategies().get(0).name(), settledFirst, cascadeRow.runs, winners);
+    }
+
+    private static final class Row {
+        final String name;
+        final LatencyStats latency;
+        int runs = 0;
+        int found = 0;
+        int hits = 0;
+        double confidenceSum = 0;
+
+        Row(String name, int samples) {
+            this.name = name;
+            this.latency = new LatencyStats(name, samples);
+        }
+
+        void record(long nanos, Point[] corners, double confidence, double accept) {
+            latency.record(nanos);
+            runs++;
+            if (corners == null) return;
+            found++;
+            confidenceSum += confidence;
+            if (confidence >= accept) hits++;
+        }
+
+        String report() {
+            return String.format("%s | hit rate %d/%d (%.0f%%), found %d, conf %.2f",
+                    latency.summary(), hits, runs, 100.0 * hits / runs, found,
+                    found == 0 ? 0 : confidenceSum / found);
+        }
+    }
+
+    private static void collectImages(File dir, List<File> images) {
+        File[] entries = dir.listFiles();
+        if (entries == null) return;
+        Arrays.sort(entries);
+        for (File f : entries) {
+            if (f.isDirectory()) {
+                collectImages(f, images);
+            } else if (f.getName().toLowerCase().endsWith(".jpg")) {
+                images.add(f);
+            }
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.chessgame;
 
 import org.opencv.core.*;
-import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 
 // --- NEW JAVA FX IMPORTS ---
@@ -23,13 +22,18 @@ import javafx.scene.shape.Line;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 
-import java.io.ByteArrayInputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class BoardDetector {
 
@@ -37,7 +41,6 @@ public class BoardDetector {
     public static final double INNER_BOARD_SIZE_CM = 40.0;
     public static final double BORDER_WIDTH_CM = (OUTER_BOARD_SIZE_CM - INNER_BOARD_SIZE_CM) / 2.0;
     public static final int VIRTUAL_RESOLUTION = 800;
-    public static final boolean DEBUG_MODE = true;
 
     // --- NEW: PUBLIC HELPER TO CALL GUI ---
     public static Point[] pickCornersManually(Mat src, Point[] existingCorners) {
@@ -54,19 +57,16 @@ public class BoardDetector {
     }
 
     private static Image mat2Image(Mat frame) {
-        MatOfByte buffer = new MatOfByte();
-        Imgcodecs.imencode(".png", frame, buffer);
-        return new Image(new ByteArrayInputStream(buffer.toArray()));
+        return FramePresenter.toImage(frame);
     }
     // --------------------------------------
 
     public static Point[] findBoardCorners(Mat originalSrc, Mat debugImg) {
         double processingWidth = 600.0;
-        double scale = 1.0;
+        double scale = originalSrc.width() > processingWidth ? processingWidth / originalSrc.width() : 1.0;
         Mat src = new Mat();
 
-        if (originalSrc.width() > processingWidth) {
-            scale = processingWidth / originalSrc.width();
+        if (scale < 1.0) {
             Imgproc.resize(originalSrc, src, new Size(), scale, scale, Imgproc.INTER_AREA);
             System.out.println("Downscaled image for processing (Scale factor: " + scale + ")");
         } else {
@@ -86,209 +86,535 @@ public class BoardDetector {
         Mat bilateral = new Mat();
         Imgproc.bilateralFilter(blurred, bilateral, 11, 80, 80);
 
-        List<Mat> thresholdedImages = new ArrayList<>();
-
-        // Approach 1: Adaptive threshold with larger block size
-        Mat thresh1 = new Mat();
-        Imgproc.adaptiveThreshold(bilateral, thresh1, 255,
-                Imgproc.ADAPTIVE_THRESH_GAUSSIAN_C,
-                Imgproc.THRESH_BINARY_INV, 31, 10); // Increased from 21, 5
-        thresholdedImages.add(thresh1);
+        // The four threshold strategies are independent: each binarizes and walks its own
+        // contours as one task on STRATEGY_POOL
+        boolean debugThresholds = DebugArtifacts.wants("board_thresholds");
+        List<Callable<StrategyResult>> strategies = new ArrayList<>(STRATEGY_COUNT);
+        for (int threshIdx = 0; threshIdx < STRATEGY_COUNT; threshIdx++) {
+            final int strategy = threshIdx;
+            strategies.add(() -> evaluateStrategy(strategy, bilateral, src, scale, debugThresholds));
+        }
 
-        // Approach 2: Otsu's thresholding
-        Mat thresh2 = new Mat();
-        Imgproc.threshold(bilateral, thresh2, 0, 255,
-                Imgproc.THRESH_BINARY_INV + Imgproc.THRESH_OTSU);
-        thresholdedImages.add(thresh2);
+        List<Future<StrategyResult>> results = STRATEGY_POOL.invokeAll(strategies);
 
-        // Approach 3: Improved Canny with aggressive morphological closing
-        Mat edges = new Mat();
-        Imgproc.Canny(bilateral, edges, 30, 90); // Lower thresholds
-        
-        // Aggressive closing to connect broken edges
-        Mat kernelClose = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(9, 9));
-        Imgproc.morphologyEx(edges, edges, Imgproc.MORPH_CLOSE, kernelClose);
-        
-        Mat kernelDilate = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(5, 5));
-        Imgproc.dilate(edges, edges, kernelDilate, new Point(-1, -1), 2);
-        thresholdedImages.add(edges);
-
-        // Approach 4: Morphological gradient with strong closing
-        Mat morphGrad = new Mat();
-        Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(5, 5));
-        Imgproc.morphologyEx(bilateral, morphGrad, Imgproc.MORPH_GRADIENT, kernel);
-        
-        Mat morphThresh = new Mat();
-        Imgproc.threshold(morphGrad, morphThresh, 0, 255, Imgproc.THRESH_BINARY + Imgproc.THRESH_OTSU);
-        
-        // Strong closing to connect edges
-        Mat kernelClose2 = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(11, 11));
-        Imgproc.morphologyEx(morphThresh, morphThresh, Imgproc.MORPH_CLOSE, kernelClose2);
-        thresholdedImages.add(morphThresh);
+        // Merge in strategy order, so the log, the debug drawing and the tie-breaking of equal
+        // scores are those of a sequential run whatever the scheduling was
+        List<CandidateQuad> candidates = new ArrayList<>();
+        for (Future<StrategyResult> future : results) {
+            StrategyResult result;
+            try {
+                result = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Board detection strategy failed", e.getCause());
+            }
+            System.out.print(result.log);
+
+            int attemptNumber = result.strategy * 10;
+            for (CandidateQuad candidate : result.candidates) {
+                Scalar color = ATTEMPT_COLORS[attemptNumber % ATTEMPT_COLORS.length];
+                for (int k = 0; k < 4 && debugImg != null; k++) {
+                    Imgproc.line(debugImg, candidate.corners[k], candidate.corners[(k + 1) % 4], color, 2);
+                    Imgproc.circle(debugImg, candidate.corners[k], 8, color, -1);
+                    Imgproc.putText(debugImg, "A" + attemptNumber + "C" + k,
+                            new Point(candidate.corners[k].x + 10, candidate.corners[k].y - 10),
+                            Imgproc.FONT_HERSHEY_SIMPLEX, 0.5, color, 2);
+                }
+                attemptNumber++;
+                candidates.add(candidate);
+            }
+        }
 
-        if (DEBUG_MODE) {
-            Imgcodecs.imwrite("debug_threshold1_adaptive.jpg", thresh1);
-            Imgcodecs.imwrite("debug_threshold2_otsu.jpg", thresh2);
-            Imgcodecs.imwrite("debug_threshold3_edges.jpg", edges);
-            Imgcodecs.imwrite("debug_threshold4_morph.jpg", morphThresh);
+        // Select best candidate: pattern and color checks only for the geometric shortlist
+        CandidateQuad best = null;
+        for (CandidateQuad candidate : shortlist(candidates, TOP_K)) {
+            if (best != null && candidate.geometricScore + MAX_CHECK_BONUS <= best.score) {
+                break; // sorted by geometric score, nothing further down can win
+            }
+            double patternScore = checkChessBoardPattern(src, candidate.processingCorners);
+            double colorConsistency = checkColorConsistency(src, candidate.processingCorners);
+            candidate.score = candidate.geometricScore
+                    + patternScore * 0.5   // Increased weight
+                    + colorConsistency * 0.3;
+            System.out.println("Candidate score: " + candidate.score + " (pattern: " + patternScore + ", color: " + colorConsistency + ")");
+            if (best == null || candidate.score > best.score) {
+                best = candidate;
+            }
+        }
+        if (best != null) {
+            System.out.println("✓✓✓ Found best board corners with score: " + best.score + " ✓✓✓");
+            return PYRAMID && scale < 1.0 ? refineCorners(originalSrc, best.corners, scale) : best.corners;
         }
 
-        double imageArea = src.width() * src.height();
-        List<CandidateQuad> candidates = new ArrayList<>();
+        System.out.println("❌ No valid board detected");
+        return null;
+    }
+
+    // --- COARSE-TO-FINE REFINEMENT ---
+
+    // Off by default: the replay baselines and saved calibrations were made with unrefined corners
+    private static final boolean PYRAMID = Boolean.getBoolean("chess.boardPyramid");
+    private static final int EDGE_SAMPLES = 32;     // edge probes per side
+    // Probe reach, in pixels of the level before. The detected quad can be several processing
+    // px off the border (blur, closing and approxPolyDP all round it), later levels only fix
+    // the resampling
+    private static final double COARSE_SEARCH = 8.0;
+    private static final double EDGE_SEARCH = 2.0;
+    private static final double MIN_EDGE_STEP = 8;  // gray levels per px for a probe to count
+    private static final double EDGE_INLIER = 1.0;  // probe distance from its side's line, level px
+
+    /**
+     * Coarse-to-fine (-Dchess.boardPyramid): the quad found at 600 px is only good to a
+     * processing pixel or more, i.e. several full-frame px (3 px per processing px at 1080p).
+     * Each level doubles the resolution up to the full frame and refines the four sides rather
+     * than the corners themselves, as the border's corners are rounded and have no corner
+     * feature to lock onto. Probes across the middle 80% of each side take the clear gray step
+     * nearest the current line (the strongest is sometimes the far side of the board's shadow),
+     * a line is fitted through the probes that agree, and adjacent sides intersect in the new
+     * corners. A side with too few agreeing probes (pieces or a hand over the border) keeps its
+     * current line; a corner that would move further than twice the probe reach stays put.
+     *
+     * @param corners     full-frame corners found at coarseScale (TL, TR, BR, BL)
+     * @param coarseScale processing width / frame width of the detection
+     * @return refined full-frame corners, same order
+     */
+    public static Point[] refineCorners(Mat originalSrc, Point[] corners, double coarseScale) {
+        Point[] refined = new Point[4];
+        for (int i = 0; i < 4; i++) refined[i] = corners[i].clone();
+
+        Mat fullGray = new Mat();
+        Imgproc.cvtColor(originalSrc, fullGray, Imgproc.COLOR_BGR2GRAY);
+        Mat levelGray = new Mat();
+        byte[] pixels = new byte[0];
+
+        double previousScale = coarseScale;
+        while (previousScale < 1.0) {
+            double levelScale = Math.min(1.0, previousScale * 2);
+            if (levelScale < 1.0) {
+                Imgproc.resize(fullGray, levelGray, new Size(), levelScale, levelScale, Imgproc.INTER_AREA);
+            } else {
+                fullGray.copyTo(levelGray);
+            }
+            int width = levelGray.cols();
+            if (pixels.length < width * levelGray.rows()) pixels = new byte[width * levelGray.rows()];
+            levelGray.get(0, 0, pixels);
+
+            // Pixel centers: level (j + 0.5) / s - 0.5 is full-frame j
+            Point[] level = new Point[4];
+            for (int i = 0; i < 4; i++) {
+                level[i] = new Point((refined[i].x + 0.5) * levelScale - 0.5, (refined[i].y + 0.5) * levelScale - 0.5);
+            }
+            double search = previousScale == coarseScale ? COARSE_SEARCH : EDGE_SEARCH;
+            double reach = search * levelScale / previousScale;
+            double[][] sides = new double[4][];
+            StringBuilder probes = new StringBuilder();
+            for (int k = 0; k < 4; k++) {
+                sides[k] = fitSide(pixels, width, levelGray.rows(), level[k], level[(k + 1) % 4], reach);
+                probes.append(sides[k] == null ? " -" : " " + (int) sides[k][4]);
+            }
 
-        for (int threshIdx = 0; threshIdx < thresholdedImages.size(); threshIdx++) {
-            Mat currentThresh = thresholdedImages.get(threshIdx);
+            double maxMove = 2 * search / previousScale; // a corner moves more than its sides where they meet at an angle
+            StringBuilder moves = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                double[] before = sides[(i + 3) % 4];
+                double[] after = sides[i];
+                Point crossing = before == null && after == null ? null
+                        : intersect(before != null ? before : lineThrough(level[(i + 3) % 4], level[i]),
+                                    after != null ? after : lineThrough(level[i], level[(i + 1) % 4]));
+                if (crossing == null) {
+                    moves.append(" -");
+                    continue;
+                }
+                Point moved = new Point((crossing.x + 0.5) / levelScale - 0.5, (crossing.y + 0.5) / levelScale - 0.5);
+                double distance = Math.hypot(moved.x - refined[i].x, moved.y - refined[i].y);
+                if (distance <= maxMove) {
+                    refined[i] = moved;
+                    moves.append(String.format(" %.1f", distance));
+                } else {
+                    moves.append(" x");
+                }
+            }
+            System.out.println("Pyramid level x" + String.format("%.2f", levelScale) + ": edge probes per side" + probes
+                    + ", corners moved" + moves + " px (x = kept, limit " + String.format("%.1f", maxMove) + ")");
+            previousScale = levelScale;
+        }
 
-            System.out.println("\n=== Trying threshold approach #" + threshIdx + " ===");
+        fullGray.release();
+        levelGray.release();
+        return refined;
+    }
 
-            // Additional morphological operations to ensure closed contours
-            Mat processed = new Mat();
-            Mat kernelCloseOp = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(11, 11));
-            Imgproc.morphologyEx(currentThresh, processed, Imgproc.MORPH_CLOSE, kernelCloseOp);
+    /**
+     * Probes across the middle of side a-b and fits a line through the edge points found.
+     * @return {vx, vy, x0, y0, probes} as from Imgproc.fitLine plus the probe count, or null
+     *         if fewer than half of the probes found a clear edge
+     */
+    private static double[] fitSide(byte[] pixels, int width, int height, Point a, Point b, double reach) {
+        double length = Math.hypot(b.x - a.x, b.y - a.y);
+        double nx = -(b.y - a.y) / length;
+        double ny = (b.x - a.x) / length;
+        int steps = (int) Math.ceil(reach * 2); // half-pixel steps each way
+        double[] profile = new double[2 * steps + 1];
+        double[] edgeSteps = new double[profile.length];
+
+        List<Point> edgePoints = new ArrayList<>();
+        for (int j = 0; j < EDGE_SAMPLES; j++) {
+            double t = 0.1 + 0.8 * j / (EDGE_SAMPLES - 1);
+            double px = a.x + t * (b.x - a.x);
+            double py = a.y + t * (b.y - a.y);
+            boolean inside = true;
+            for (int s = -steps; s <= steps && inside; s++) {
+                double v = bilinear(pixels, width, height, px + 0.5 * s * nx, py + 0.5 * s * ny);
+                inside = !Double.isNaN(v);
+                profile[s + steps] = v;
+            }
+            if (!inside) continue;
+
+            // Central differences over 1 px, either polarity. The board's edge is the clear step
+            // nearest the current line: the strongest one is sometimes the far side of the
+            // board's shadow
+            double strongest = 0;
+            for (int s = 1; s < profile.length - 1; s++) {
+                edgeSteps[s] = Math.abs(profile[s + 1] - profile[s - 1]);
+                strongest = Math.max(strongest, edgeSteps[s]);
+            }
+            double clear = Math.max(MIN_EDGE_STEP, strongest / 4);
+            int best = -1;
+            for (int s = 2; s < profile.length - 2; s++) {
+                boolean peak = edgeSteps[s] >= clear && edgeSteps[s] >= edgeSteps[s - 1] && edgeSteps[s] >= edgeSteps[s + 1];
+                if (peak && (best < 0 || Math.abs(s - steps) < Math.abs(best - steps))) best = s;
+            }
+            if (best < 0) continue; // no clear edge within reach
 
-            // Find Contours
-            List<MatOfPoint> contours = new ArrayList<>();
-            Mat hierarchy = new Mat();
-            Imgproc.findContours(processed, contours, hierarchy,
-                    Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+            double curvature = edgeSteps[best - 1] - 2 * edgeSteps[best] + edgeSteps[best + 1];
+            double offset = curvature < 0 ? 0.5 * (edgeSteps[best - 1] - edgeSteps[best + 1]) / curvature : 0;
+            double d = 0.5 * (best - steps + offset);
+            edgePoints.add(new Point(px + d * nx, py + d * ny));
+        }
+        if (edgePoints.size() < EDGE_SAMPLES / 2) return null;
+
+        // Probes that caught a piece or the far side of the shadow must not tilt the line: take
+        // the line through two probes that most others agree with, then fit those
+        List<Point> consensus = new ArrayList<>();
+        for (int i = 0; i < edgePoints.size(); i++) {
+            for (int j = i + 1; j < edgePoints.size(); j++) {
+                List<Point> agreeing = agreeingWith(edgePoints, lineThrough(edgePoints.get(i), edgePoints.get(j)));
+                if (agreeing.size() > consensus.size()) consensus = agreeing;
+            }
+        }
+        if (consensus.size() < EDGE_SAMPLES / 2) return null;
+
+        MatOfPoint2f points = new MatOfPoint2f(consensus.toArray(new Point[0]));
+        Mat line = new Mat();
+        Imgproc.fitLine(points, line, Imgproc.DIST_L2, 0, 0.01, 0.01);
+        double[] fitted = {line.get(0, 0)[0], line.get(1, 0)[0], line.get(2, 0)[0], line.get(3, 0)[0], consensus.size()};
+        points.release();
+        line.release();
+        return fitted;
+    }
 
-            contours.sort((c1, c2) -> Double.compare(Imgproc.contourArea(c2), Imgproc.contourArea(c1)));
+    /** The points within EDGE_INLIER level px of a line given as {vx, vy, x0, y0}. */
+    private static List<Point> agreeingWith(List<Point> points, double[] line) {
+        List<Point> agreeing = new ArrayList<>();
+        for (Point p : points) {
+            if (Math.abs((p.x - line[2]) * line[1] - (p.y - line[3]) * line[0]) <= EDGE_INLIER) agreeing.add(p);
+        }
+        return agreeing;
+    }
 
-            int attemptNumber = threshIdx * 10;
-            Scalar[] attemptColors = new Scalar[]{
-                    new Scalar(255, 0, 0), new Scalar(0, 255, 255),
-                    new Scalar(255, 0, 255), new Scalar(0, 165, 255),
-                    new Scalar(255, 255, 0), new Scalar(128, 0, 128),
-                    new Scalar(0, 255, 0), new Scalar(255, 128, 0),
-                    new Scalar(128, 128, 128), new Scalar(200, 200, 200)
-            };
+    private static double[] lineThrough(Point a, Point b) {
+        double length = Math.hypot(b.x - a.x, b.y - a.y);
+        return new double[]{(b.x - a.x) / length, (b.y - a.y) / length, a.x, a.y};
+    }
 
-            for (int i = 0; i < Math.min(contours.size(), 20); i++) { // Check more contours
-                MatOfPoint contour = contours.get(i);
-                double area = Imgproc.contourArea(contour);
+    /** Crossing of two lines given as {vx, vy, x0, y0}, or null if (nearly) parallel. */
+    private static Point intersect(double[] l1, double[] l2) {
+        double det = l1[0] * l2[1] - l1[1] * l2[0];
+        if (Math.abs(det) < 1e-6) return null;
+        double t = ((l2[2] - l1[2]) * l2[1] - (l2[3] - l1[3]) * l2[0]) / det;
+        return new Point(l1[2] + t * l1[0], l1[3] + t * l1[1]);
+    }
 
-                System.out.println("\n--- Checking contour #" + i + " (threshold " + threshIdx + ") ---");
-                System.out.println("Area: " + area + " (" + (area/imageArea*100) + "% of image)");
+    /** Gray value at a sub-pixel position, or NaN outside the image. */
+    private static double bilinear(byte[] pixels, int width, int height, double x, double y) {
+        int x0 = (int) Math.floor(x);
+        int y0 = (int) Math.floor(y);
+        if (x0 < 0 || y0 < 0 || x0 + 1 >= width || y0 + 1 >= height) return Double.NaN;
+        double fx = x - x0;
+        double fy = y - y0;
+        int i = y0 * width + x0;
+        double top = (pixels[i] & 0xFF) * (1 - fx) + (pixels[i + 1] & 0xFF) * fx;
+        double bottom = (pixels[i + width] & 0xFF) * (1 - fx) + (pixels[i + width + 1] & 0xFF) * fx;
+        return top * (1 - fy) + bottom * fy;
+    }
 
-                // More relaxed size constraints
-                if (area < imageArea * 0.10) {
-                    System.out.println("Skipped: Too small (< 10% of image)");
-                    continue;
+    // --- THRESHOLD STRATEGIES ---
+
+    private static final int STRATEGY_COUNT = 4;
+
+    // Shared by all callers; workers are daemons and idle between detections
+    // (-Dchess.boardThreads, default: one per strategy, at most all cores)
+    private static final ForkJoinPool STRATEGY_POOL = new ForkJoinPool(Math.max(1,
+            Integer.getInteger("chess.boardThreads",
+                    Math.min(STRATEGY_COUNT, Runtime.getRuntime().availableProcessors()))));
+
+    private static final Scalar[] ATTEMPT_COLORS = new Scalar[]{
+            new Scalar(255, 0, 0), new Scalar(0, 255, 255),
+            new Scalar(255, 0, 255), new Scalar(0, 165, 255),
+            new Scalar(255, 255, 0), new Scalar(128, 0, 128),
+            new Scalar(0, 255, 0), new Scalar(255, 128, 0),
+            new Scalar(128, 128, 128), new Scalar(200, 200, 200)
+    };
+
+    // Shortlist for the expensive checks (-Dchess.boardTopK); quads whose corners are all
+    // within DEDUP_DISTANCE px of each other (downscaled image) count as one. K below 4
+    // changes the corners found on the bundled test images
+    private static final int TOP_K = Math.max(1, Integer.getInteger("chess.boardTopK", 4));
+    private static final double DEDUP_DISTANCE = 2.0;
+    // Most checkChessBoardPattern * 0.5 + checkColorConsistency * 0.3 can add
+    private static final double MAX_CHECK_BONUS = 0.8;
+
+    /**
+     * Collapses near-identical quads (neighbouring epsilons and strategies mostly find the same
+     * one) to the one with the best geometric score, then returns the best k by geometric score.
+     * Ties keep discovery order.
+     */
+    static List<CandidateQuad> shortlist(List<CandidateQuad> candidates, int k) {
+        List<CandidateQuad> distinct = new ArrayList<>();
+        for (CandidateQuad candidate : candidates) {
+            int same = -1;
+            for (int i = 0; i < distinct.size() && same < 0; i++) {
+                if (maxCornerDistance(distinct.get(i).processingCorners, candidate.processingCorners) <= DEDUP_DISTANCE) {
+                    same = i;
                 }
+            }
+            if (same < 0) {
+                distinct.add(candidate);
+            } else if (candidate.geometricScore > distinct.get(same).geometricScore) {
+                distinct.set(same, candidate);
+            }
+        }
+        distinct.sort((c1, c2) -> Double.compare(c2.geometricScore, c1.geometricScore));
+        log("Shortlist: " + Math.min(k, distinct.size()) + " of " + distinct.size()
+                + " distinct quads (" + candidates.size() + " found)");
+        return distinct.subList(0, Math.min(k, distinct.size()));
+    }
 
-                if (area > imageArea * 0.95) {
-                    System.out.println("Skipped: Too large (> 95% of image)");
-                    continue;
-                }
+    private static double maxCornerDistance(Point[] a, Point[] b) {
+        double max = 0;
+        for (int i = 0; i < 4; i++) {
+            max = Math.max(max, Math.hypot(a[i].x - b[i].x, a[i].y - b[i].y));
+        }
+        return max;
+    }
 
-                // Convex hull
-                MatOfInt hullIdx = new MatOfInt();
-                Imgproc.convexHull(contour, hullIdx);
+    // While a strategy runs, its log lines (and those of the helpers it calls) go here
+    private static final ThreadLocal<PrintWriter> STRATEGY_LOG = new ThreadLocal<>();
 
-                Point[] contourArray = contour.toArray();
-                Point[] hullPoints = new Point[hullIdx.rows()];
-                for(int j=0; j < hullIdx.rows(); j++) {
-                    hullPoints[j] = contourArray[hullIdx.toArray()[j]];
-                }
-                MatOfPoint2f hull2f = new MatOfPoint2f(hullPoints);
-
-                // Try multiple epsilon values with wider range
-                for (double epsilonFactor = 0.01; epsilonFactor <= 0.12; epsilonFactor += 0.005) {
-                    double peri = Imgproc.arcLength(hull2f, true);
-                    MatOfPoint2f approx = new MatOfPoint2f();
-                    Imgproc.approxPolyDP(hull2f, approx, epsilonFactor * peri, true);
-
-                    if (approx.total() == 4) {
-                        Point[] foundPoints = approx.toArray();
-                        System.out.println("Found 4-sided polygon with epsilon: " + epsilonFactor);
-
-                        // Basic validation
-                        if (!isValidQuadrilateral(foundPoints)) {
-                            System.out.println("Rejected: Invalid quadrilateral");
-                            continue;
-                        }
+    private static void log(String line) {
+        PrintWriter strategyLog = STRATEGY_LOG.get();
+        if (strategyLog != null) {
+            strategyLog.println(line);
+        } else {
+            System.out.println(line);
+        }
+    }
 
-                        Point[] ordered = orderPoints(foundPoints);
-                        
-                        // Check corner angles
-                        if (!hasReasonableAngles(ordered)) {
-                            System.out.println("Rejected: Corner angles too extreme");
-                            continue;
-                        }
+    /** What one strategy found, in the order it found it; the log is printed at merge time. */
+    private static class StrategyResult {
+        final int strategy;
+        final List<CandidateQuad> candidates = new ArrayList<>();
+        final StringWriter log = new StringWriter();
 
-                        // Check centering (more relaxed)
-                        double centerX = (ordered[0].x + ordered[1].x + ordered[2].x + ordered[3].x) / 4.0;
-                        double centerY = (ordered[0].y + ordered[1].y + ordered[2].y + ordered[3].y) / 4.0;
-                        double imgCenterX = src.width() / 2.0;
-                        double imgCenterY = src.height() / 2.0;
-                        double centerDistX = Math.abs(centerX - imgCenterX) / src.width();
-                        double centerDistY = Math.abs(centerY - imgCenterY) / src.height();
+        StrategyResult(int strategy) {
+            this.strategy = strategy;
+        }
+    }
 
-                        System.out.println("Board center offset: X=" + (centerDistX*100) + "%, Y=" + (centerDistY*100) + "%");
+    /** Binarization #strategy of the smoothed gray image (0 adaptive, 1 Otsu, 2 edges, 3 morph). */
+    private static Mat thresholdImage(int strategy, Mat bilateral, boolean debug) {
+        switch (strategy) {
+            case 0: {
+                // Approach 1: Adaptive threshold with larger block size
+                Mat thresh1 = new Mat();
+                Imgproc.adaptiveThreshold(bilateral, thresh1, 255,
+                        Imgproc.ADAPTIVE_THRESH_GAUSSIAN_C,
+                        Imgproc.THRESH_BINARY_INV, 31, 10); // Increased from 21, 5
+                if (debug) DebugArtifacts.write("debug_threshold1_adaptive.jpg", thresh1);
+                return thresh1;
+            }
+            case 1: {
+                // Approach 2: Otsu's thresholding
+                Mat thresh2 = new Mat();
+                Imgproc.threshold(bilateral, thresh2, 0, 255,
+                        Imgproc.THRESH_BINARY_INV + Imgproc.THRESH_OTSU);
+                if (debug) DebugArtifacts.write("debug_threshold2_otsu.jpg", thresh2);
+                return thresh2;
+            }
+            case 2: {
+                // Approach 3: Improved Canny with aggressive morphological closing
+                Mat edges = new Mat();
+                Imgproc.Canny(bilateral, edges, 30, 90); // Lower thresholds
+
+                // Aggressive closing to connect broken edges
+                Mat kernelClose = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(9, 9));
+                Imgproc.morphologyEx(edges, edges, Imgproc.MORPH_CLOSE, kernelClose);
+
+                Mat kernelDilate = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(5, 5));
+                Imgproc.dilate(edges, edges, kernelDilate, new Point(-1, -1), 2);
+                if (debug) DebugArtifacts.write("debug_threshold3_edges.jpg", edges);
+                return edges;
+            }
+            case 3: {
+                // Approach 4: Morphological gradient with strong closing
+                Mat morphGrad = new Mat();
+                Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(5, 5));
+                Imgproc.morphologyEx(bilateral, morphGrad, Imgproc.MORPH_GRADIENT, kernel);
+
+                Mat morphThresh = new Mat();
+                Imgproc.threshold(morphGrad, morphThresh, 0, 255, Imgproc.THRESH_BINARY + Imgproc.THRESH_OTSU);
+
+                // Strong closing to connect edges
+                Mat kernelClose2 = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(11, 11));
+                Imgproc.morphologyEx(morphThresh, morphThresh, Imgproc.MORPH_CLOSE, kernelClose2);
+                if (debug) DebugArtifacts.write("debug_threshold4_morph.jpg", morphThresh);
+                return morphThresh;
+            }
+            default:
+                throw new IllegalArgumentException("No threshold strategy #" + strategy);
+        }
+    }
 
-                        if (centerDistX > 0.48 || centerDistY > 0.48) {
-                            System.out.println("Rejected: Board too off-center");
-                            continue;
-                        }
+    /**
+     * Runs one threshold strategy end to end: binarize, close, walk the 20 largest contours and
+     * score every quadrilateral that passes the checks. Reads bilateral and src only, so the
+     * strategies can run side by side.
+     */
+    private static StrategyResult evaluateStrategy(int threshIdx, Mat bilateral, Mat src,
+                                                   double scale, boolean debug) {
+        StrategyResult result = new StrategyResult(threshIdx);
+        STRATEGY_LOG.set(new PrintWriter(result.log));
+        try {
+            walkContours(threshIdx, bilateral, src, scale, debug, result);
+        } finally {
+            STRATEGY_LOG.get().flush();
+            STRATEGY_LOG.remove();
+        }
+        return result;
+    }
 
-                        // Check solidity
-                        double solidity = area / Imgproc.contourArea(new MatOfPoint(hullPoints));
-                        System.out.println("Solidity: " + solidity);
-                        if (solidity < 0.81) {
-                            System.out.println("Rejected: Solidity too low");
-                            continue;
-                        }
+    private static void walkContours(int threshIdx, Mat bilateral, Mat src, double scale,
+                                     boolean debug, StrategyResult result) {
+        Mat currentThresh = thresholdImage(threshIdx, bilateral, debug);
+        double imageArea = src.width() * src.height();
 
-                        // Calculate comprehensive score
-                        double score = calculateCandidateScore(ordered, area, solidity, centerDistX, centerDistY, src);
+        log("\n=== Trying threshold approach #" + threshIdx + " ===");
 
-                        // Pattern and color checks
-                        double patternScore = checkChessBoardPattern(src, ordered);
-                        score += patternScore * 0.5; // Increased weight
+        // Additional morphological operations to ensure closed contours
+        Mat processed = new Mat();
+        Mat kernelCloseOp = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(11, 11));
+        Imgproc.morphologyEx(currentThresh, processed, Imgproc.MORPH_CLOSE, kernelCloseOp);
 
-                        double colorConsistency = checkColorConsistency(src, ordered);
-                        score += colorConsistency * 0.3; // Increased weight
+        // Find Contours
+        List<MatOfPoint> contours = new ArrayList<>();
+        Mat hierarchy = new Mat();
+        Imgproc.findContours(processed, contours, hierarchy,
+                Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
 
-                        System.out.println("Candidate score: " + score + " (pattern: " + patternScore + ", color: " + colorConsistency + ")");
+        contours.sort((c1, c2) -> Double.compare(Imgproc.contourArea(c2), Imgproc.contourArea(c1)));
 
-                        // Draw on debug image
-                        Point[] scaledPoints = new Point[4];
-                        for(int k = 0; k < 4; k++) {
-                            scaledPoints[k] = new Point(foundPoints[k].x / scale, foundPoints[k].y / scale);
-                        }
+        for (int i = 0; i < Math.min(contours.size(), 20); i++) { // Check more contours
+            MatOfPoint contour = contours.get(i);
+            double area = Imgproc.contourArea(contour);
 
-                        Scalar color = attemptColors[attemptNumber % attemptColors.length];
-                        Point[] orderedScaled = orderPoints(scaledPoints);
-                        for (int k = 0; k < 4; k++) {
-                            Imgproc.line(debugImg, orderedScaled[k], orderedScaled[(k + 1) % 4], color, 2);
-                            Imgproc.circle(debugImg, orderedScaled[k], 8, color, -1);
-                            Imgproc.putText(debugImg, "A" + attemptNumber + "C" + k,
-                                    new Point(orderedScaled[k].x + 10, orderedScaled[k].y - 10),
-                                    Imgproc.FONT_HERSHEY_SIMPLEX, 0.5, color, 2);
-                        }
-                        attemptNumber++;
+            log("\n--- Checking contour #" + i + " (threshold " + threshIdx + ") ---");
+            log("Area: " + area + " (" + (area/imageArea*100) + "% of image)");
 
-                        Point[] scaledForCandidate = new Point[4];
-                        for(int k = 0; k < 4; k++) {
-                            scaledForCandidate[k] = new Point(foundPoints[k].x / scale, foundPoints[k].y / scale);
-                        }
+            // More relaxed size constraints
+            if (area < imageArea * 0.10) {
+                log("Skipped: Too small (< 10% of image)");
+                continue;
+            }
+
+            if (area > imageArea * 0.95) {
+                log("Skipped: Too large (> 95% of image)");
+                continue;
+            }
+
+            // Convex hull
+            MatOfInt hullIdx = new MatOfInt();
+            Imgproc.convexHull(contour, hullIdx);
+
+            Point[] contourArray = contour.toArray();
+            Point[] hullPoints = new Point[hullIdx.rows()];
+            for(int j=0; j < hullIdx.rows(); j++) {
+                hullPoints[j] = contourArray[hullIdx.toArray()[j]];
+            }
+            MatOfPoint2f hull2f = new MatOfPoint2f(hullPoints);
+
+            // Try multiple epsilon values with wider range
+            for (double epsilonFactor = 0.01; epsilonFactor <= 0.12; epsilonFactor += 0.005) {
+                double peri = Imgproc.arcLength(hull2f, true);
+                MatOfPoint2f approx = new MatOfPoint2f();
+                Imgproc.approxPolyDP(hull2f, approx, epsilonFactor * peri, true);
+
+                if (approx.total() == 4) {
+                    Point[] foundPoints = approx.toArray();
+                    log("Found 4-sided polygon with epsilon: " + epsilonFactor);
+
+                    // Basic validation
+                    if (!isValidQuadrilateral(foundPoints)) {
+                        log("Rejected: Invalid quadrilateral");
+                        continue;
+                    }
+
+                    Point[] ordered = orderPoints(foundPoints);
 
-                        candidates.add(new CandidateQuad(orderPoints(scaledForCandidate), score));
+                    // Check corner angles
+                    if (!hasReasonableAngles(ordered)) {
+                        log("Rejected: Corner angles too extreme");
+                        continue;
                     }
+
+                    // Check centering (more relaxed)
+                    double centerX = (ordered[0].x + ordered[1].x + ordered[2].x + ordered[3].x) / 4.0;
+                    double centerY = (ordered[0].y + ordered[1].y + ordered[2].y + ordered[3].y) / 4.0;
+                    double imgCenterX = src.width() / 2.0;
+                    double imgCenterY = src.height() / 2.0;
+                    double centerDistX = Math.abs(centerX - imgCenterX) / src.width();
+                    double centerDistY = Math.abs(centerY - imgCenterY) / src.height();
+
+                    log("Board center offset: X=" + (centerDistX*100) + "%, Y=" + (centerDistY*100) + "%");
+
+                    if (centerDistX > 0.48 || centerDistY > 0.48) {
+                        log("Rejected: Board too off-center");
+                        continue;
+                    }
+
+                    // Check solidity
+                    double solidity = area / Imgproc.contourArea(new MatOfPoint(hullPoints));
+                    log("Solidity: " + solidity);
+                    if (solidity < 0.81) {
+                        log("Rejected: Solidity too low");
+                        continue;
+                    }
+
+                    // Geometric score only; the pattern and color checks run on the shortlist
+                    double score = calculateCandidateScore(ordered, area, solidity, centerDistX, centerDistY, src);
+                    log("Geometric score: " + score);
+
+                    // Back to original image coordinates (drawn on the debug image at merge time)
+                    Point[] scaledForCandidate = new Point[4];
+                    for(int k = 0; k < 4; k++) {
+                        scaledForCandidate[k] = new Point(foundPoints[k].x / scale, foundPoints[k].y / scale);
+                    }
+
+                    result.candidates.add(new CandidateQuad(orderPoints(scaledForCandidate), ordered, score));
                 }
             }
         }
-
-        // Select best candidate
-        if (!candidates.isEmpty()) {
-            candidates.sort((c1, c2) -> Double.compare(c2.score, c1.score));
-            CandidateQuad best = candidates.get(0);
-            System.out.println("✓✓✓ Found best board corners with score: " + best.score + " ✓✓✓");
-            return best.corners;
-        }
-
-        System.out.println("❌ No valid board detected");
-        return null;
     }
 
     // --- HELPER METHODS PRESERVED EXACTLY ---
@@ -379,11 +705,19 @@ public class BoardDetector {
     public static class CandidateQuad {
         Point[] corners;
         double score;
+        Point[] processingCorners; // ordered, in the downscaled image the checks run on
+        double geometricScore;
 
         CandidateQuad(Point[] corners, double score) {
             this.corners = corners;
             this.score = score;
         }
+
+        CandidateQuad(Point[] corners, Point[] processingCorners, double geometricScore) {
+            this(corners, geometricScore);
+            this.processingCorners = processingCorners;
+            this.geometricScore = geometricScore;
+        }
     }
 
     public static double calculateCandidateScore(Point[] ordered, double area, double solidity,
@@ -468,10 +802,10 @@ public class BoardDetector {
 
             // Higher variance = better pattern
             double patternScore = Math.min(1.0, variance / 1000.0);
-            System.out.println("Pattern variance: " + variance + " (score: " + patternScore + ")");
+            log("Pattern variance: " + variance + " (score: " + patternScore + ")");
             return patternScore;
         } catch (Exception e) {
-            System.out.println("Pattern check failed: " + e.getMessage());
+            log("Pattern check failed: " + e.getMessage());
             return 0.0;
         }
     }
@@ -523,7 +857,7 @@ public class BoardDetector {
             double consistencyScore = 1.0 / (1.0 + variance / 100.0);
             return consistencyScore;
         } catch (Exception e) {
-            System.out.println("Color consistency check failed: " + e.getMessage());
+            log("Color consistency check failed: " + e.getMessage());
             return 0.5;
         }
     }
@@ -544,28 +878,28 @@ public class BoardDetector {
         double avgWidth = (topWidth + bottomWidth) / 2.0;
         double avgHeight = (leftHeight + rightHeight) / 2.0;
 
-        System.out.println("Quadrilateral check:");
-        System.out.println("  Top width: " + topWidth + ", Bottom width: " + bottomWidth);
-        System.out.println("  Left height: " + leftHeight + ", Right height: " + rightHeight);
+        log("Quadrilateral check:");
+        log("  Top width: " + topWidth + ", Bottom width: " + bottomWidth);
+        log("  Left height: " + leftHeight + ", Right height: " + rightHeight);
 
         // VERY RELAXED width ratio (allow strong perspective)
         double widthRatio = Math.min(topWidth, bottomWidth) / Math.max(topWidth, bottomWidth);
         if (widthRatio < 0.20) { 
-            System.out.println("Failed: Width ratio too extreme: " + widthRatio);
+            log("Failed: Width ratio too extreme: " + widthRatio);
             return false;
         }
 
         // VERY RELAXED height ratio
         double heightRatio = Math.min(leftHeight, rightHeight) / Math.max(leftHeight, rightHeight);
         if (heightRatio < 0.20) { 
-            System.out.println("Failed: Height ratio too extreme: " + heightRatio);
+            log("Failed: Height ratio too extreme: " + heightRatio);
             return false;
         }
 
         // VERY RELAXED aspect ratio
         double aspectRatio = avgWidth / avgHeight;
         if (aspectRatio < 0.3 || aspectRatio > 3.0) { 
-            System.out.println("Failed: Aspect ratio not square enough: " + aspectRatio);
+            log("Failed: Aspect ratio not square enough: " + aspectRatio);
             return false;
         }
 
@@ -574,13 +908,13 @@ public class BoardDetector {
         double diag2 = Math.sqrt(Math.pow(bl.x - tr.x, 2) + Math.pow(bl.y - tr.y, 2));
         double diagRatio = Math.min(diag1, diag2) / Math.max(diag1, diag2);
 
-        System.out.println("Diagonal ratio: " + diagRatio);
+        log("Diagonal ratio: " + diagRatio);
         if (diagRatio < 0.30) { 
-            System.out.println("Failed: Diagonals too unequal: " + diagRatio);
+            log("Failed: Diagonals too unequal: " + diagRatio);
             return false;
         }
 
-        System.out.println("✓ Validation passed - proper quadrilateral detected");
+        log("✓ Validation passed - proper quadrilateral detected");
         return true;
     }
 
@@ -625,12 +959,12 @@ public class BoardDetector {
             angles[i] = Math.toDegrees(Math.acos(cosAngle));
         }
 
-        System.out.println("Corner angles: " + Arrays.toString(angles));
+        log("Corner angles: " + Arrays.toString(angles));
 
         // VERY RELAXED angle constraints (20-160 degrees)
         for (double angle : angles) {
             if (angle < 20 || angle > 160) {
-                System.out.println("Failed: Angle " + angle + " is too extreme");
+                log("Failed: Angle " + angle + " is too extreme");
                 return false;
             }
         }
@@ -0,0 +1,126 @@
+package com.chessgame;
+
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+
+/**
+ * Where the board and its squares sit inside a warped board image of a given width.
+ *
+ * Everything derives from the physical board (44 cm outer, 40 cm playing area), so a 256 px
+ * detection warp and the 800 px classifier warp describe exactly the same squares, only at
+ * different scales. The optional sky buffer is empty space above the board that keeps tall
+ * back-rank pieces in frame; change detection doesn't need it, the classifier crops do.
+ */
+public final class BoardGeometry {
+
+    /** The original geometry: VIRTUAL_RESOLUTION wide with a half-board sky buffer. */
+    public static final BoardGeometry FULL = new BoardGeometry(BoardDetector.VIRTUAL_RESOLUTION, true);
+
+    // Below ~200 px the dr replay starts missing moves
+    public static final int DEFAULT_DETECTION_WIDTH = 256;
+
+    private final int width;
+    private final int skyBuffer;
+    private final double innerStart;
+    private final double squareSize;
+
+    public BoardGeometry(int width, boolean withSkyBuffer) {
+        double outerSize = BoardDetector.OUTER_BOARD_SIZE_CM;
+        double borderRatio = BoardDetector.BORDER_WIDTH_CM / outerSize;
+
+        this.width = width;
+        this.skyBuffer = withSkyBuffer ? (int) (width * 0.5) : 0;
+        this.innerStart = width * borderRatio;
+        this.squareSize = width * (BoardDetector.INNER_BOARD_SIZE_CM / outerSize) / 8.0;
+    }
+
+    /** Low-res, sky-less geometry for the per-tick diff. */
+    public static BoardGeometry detection(int width) {
+        return new BoardGeometry(width, false);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return width + skyBuffer;
+    }
+
+    public int getSkyBuffer() {
+        return skyBuffer;
+    }
+
+    public double getSquareSize() {
+        return squareSize;
+    }
+
+    /** This geometry's size relative to the 800 px one the thresholds were tuned on. */
+    public double getScale() {
+        return width / (double) BoardDetector.VIRTUAL_RESOLUTION;
+    }
+
+    /** Scales a pixel length tuned at VIRTUAL_RESOLUTION to this geometry (at least 1 px). */
+    public int scaled(double fullResPixels) {
+        return Math.max(1, (int) Math.round(fullResPixels * getScale()));
+    }
+
+    /** Where the outer corners (TL, TR, BR, BL) land in the warped image. */
+    public Point[] outerCorners() {
+        return new Point[]{
+                new Point(0, skyBuffer),
+                new Point(width, skyBuffer),
+                new Point(width, width + skyBuffer),
+                new Point(0, width + skyBuffer)
+        };
+    }
+
+    /** Top-left of a square (row 0 = top of the warped image, col 0 = left). */
+    public double squareX(int col) {
+        return innerStart + col * squareSize;
+    }
+
+    public double squareY(int row) {
+        return skyBuffer + innerStart + row * squareSize;
+    }
+
+    /**
+     * The classifier's view of a square: widened by 30% and extended upwards so the whole piece
+     * fits, more for far ranks (which lean further "up" in the image) than for near ones.
+     * Clamped to the warped image. These are the rules the training crops were made with.
+     */
+    public Rect extendedSquareRect(int row, int col) {
+        double baseExtraHeightRatio = 0.85;
+        double extraWidthRatio = 0.3;
+        int extraWidthPerSide = (int) (squareSize * extraWidthRatio / 2.0);
+
+        double rowAdjustment;
+        if (row == 0) rowAdjustment = baseExtraHeightRatio + 0.3;
+        else if (row < 2) rowAdjustment = baseExtraHeightRatio + 0.2;
+        else if (row < 4) rowAdjustment = baseExtraHeightRatio;
+        else if (row < 6) rowAdjustment = baseExtraHeightRatio - 0.2;
+        else rowAdjustment = baseExtraHeightRatio - 0.3;
+
+        int extraHeight = (int) (squareSize * rowAdjustment);
+
+        int extendedX = (int) Math.max(0, squareX(col) - extraWidthPerSide);
+        int extendedY = (int) Math.max(0, squareY(row) - extraHeight);
+        int extendedWidth = (int) squareSize + (2 * extraWidthPerSide);
+        int extendedHeight = (int) squareSize + extraHeight;
+
+        if (extendedX + extendedWidth > getWidth()) extendedWidth = getWidth() - extendedX;
+        if (extendedY + extendedHeight > getHeight()) extendedHeight = getHeight() - extendedY;
+
+        return new Rect(extendedX, extendedY, extendedWidth, extendedHeight);
+    }
+
+    /** The square shrunk by 'inset' pixels on every side, used for the change scores. */
+    public Rect strictSquareRect(int row, int col, int inset) {
+        return new Rect(
+                (int) squareX(col) + inset,
+                (int) squareY(row) + inset,
+                (int) squareSize - (2 * inset),
+                (int) squareSize - (2 * inset)
+        );
+    }
+}
@@ -0,0 +1,131 @@
+package com.chessgame;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * A board warp calibrated once for a fixed set of outer corners.
+ *
+ * The perspective matrix is computed in the constructor and turned into fixed-point remap
+ * tables (CV_16SC2 + CV_16UC1), so every warp afterwards is a single table lookup instead of
+ * re-deriving the matrix and projecting each pixel. Output size and layout come from a
+ * BoardGeometry; the default is the full 800 px one with the sky buffer.
+ *
+ * Instances are immutable, so one BoardWarp can be shared between threads as long as each
+ * thread warps into its own destination Mat. release() frees the native maps; only call it
+ * once nobody can warp with this instance any more.
+ */
+public class BoardWarp {
+
+    private final Point[] corners;
+    private final BoardGeometry geometry;
+    private final Mat matrix;
+    private final int width;
+    private final int height;
+
+    // Fixed-point maps from convertMaps: integer coords + interpolation table index
+    private final Mat mapXY = new Mat();
+    private final Mat mapFrac = new Mat();
+
+    public BoardWarp(Point[] outerCorners) {
+        this(outerCorners, BoardGeometry.FULL);
+    }
+
+    public BoardWarp(Point[] outerCorners, BoardGeometry geometry) {
+        this.corners = outerCorners.clone();
+        this.geometry = geometry;
+        this.width = geometry.getWidth();
+        this.height = geometry.getHeight();
+        this.matrix = standardMatrix(outerCorners, geometry);
+        buildMaps();
+    }
+
+    /** Perspective matrix from the outer corners (TL, TR, BR, BL) to the given warped layout. */
+    public static Mat standardMatrix(Point[] outerCorners, BoardGeometry geometry) {
+        MatOfPoint2f src = new MatOfPoint2f(outerCorners);
+        MatOfPoint2f dst = new MatOfPoint2f(geometry.outerCorners());
+        Mat matrix = Imgproc.getPerspectiveTransform(src, dst);
+        src.release();
+        dst.release();
+        return matrix;
+    }
+
+    /**
+     * For every destination pixel, where does it come from in the camera frame?
+     * Project a grid of destination coordinates through the inverse matrix once,
+     * then let OpenCV pack the result into its fast fixed-point format.
+     */
+    private void buildMaps() {
+        float[] grid = new float[width * height * 2];
+        int i = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                grid[i++] = x;
+                grid[i++] = y;
+            }
+        }
+        Mat dstCoords = new Mat(height, width, CvType.CV_32FC2);
+        dstCoords.put(0, 0, grid);
+
+        Mat inverse = matrix.inv();
+        Mat srcCoords = new Mat();
+        Core.perspectiveTransform(dstCoords, srcCoords, inverse);
+        Mat noMap = new Mat();
+        Imgproc.convertMaps(srcCoords, noMap, mapXY, mapFrac, CvType.CV_16SC2);
+
+        noMap.release();
+        dstCoords.release();
+        srcCoords.release();
+        inverse.release();
+    }
+
+    /**
+     * Warps src into dst. dst is reallocated only if its size/type doesn't match already,
+     * so callers that keep passing the same Mat pay no allocation per frame.
+     */
+    public void warp(Mat src, Mat dst) {
+        Imgproc.remap(src, dst, mapXY, mapFrac, Imgproc.INTER_LINEAR);
+    }
+
+    /** Convenience for one-off callers: warps into a new Mat. */
+    public Mat warp(Mat src) {
+        Mat dst = new Mat();
+        warp(src, dst);
+        return dst;
+    }
+
+    public Point[] getCorners() {
+        return corners.clone();
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    public Mat getMatrix() {
+        return matrix;
+    }
+
+    public Size getSize() {
+        return new Size(width, height);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void release() {
+        matrix.release();
+        mapXY.release();
+        mapFrac.release();
+    }
+}
@@ -0,0 +1,199 @@
+package com.chessgame;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Board calibrations kept between sessions, one profile per frame source (the -Dchess.source
+ * spec, e.g. "camera:1"), in a small versioned JSON file: -Dchess.calibrationFile, default
+ * calibration.json in the working directory; set it empty to turn saving and loading off.
+ *
+ * A stored profile is only a shortcut. validate() checks it against the live frame (same
+ * capture resolution, same board dimensions, and the stored corners still look like the board
+ * to BoardDetection's confidence check), so a moved camera or board falls back to detection
+ * and the manual picker. A file from another version or one that doesn't parse is ignored.
+ */
+public class CalibrationStore {
+
+    public static final int VERSION = 1;
+
+    // Manually picked corners around a cluttered board may never reach the acceptance
+    // confidence; the same corners scoring about what they did when saved is good enough, but
+    // never below a floor well above what a moved board scores (~0.3 for a 150 px shift on
+    // the dr stills). A profile saved below floor + slack always goes back to the picker.
+    private static final double SAVED_CONFIDENCE_SLACK = 0.1;
+    private static final double MIN_CONFIDENCE = 0.5;
+
+    /** One camera's calibration, as written to the file. */
+    public static final class Profile {
+        private int cameraIndex = -1;   // -1 for replay sources
+        private int frameWidth;
+        private int frameHeight;
+        private double[][] corners;     // outer TL, TR, BR, BL in frame pixels
+        private double[] homography;    // row-major 3x3, frame -> BoardGeometry.FULL warp
+        private double innerRatio;      // inner / outer board size the inner corners come from
+        private double confidence;      // BoardDetection confidence of the corners when saved
+        private long savedAt;           // epoch millis
+
+        public Point[] getCorners() {
+            Point[] points = new Point[4];
+            for (int i = 0; i < 4; i++) {
+                points[i] = new Point(corners[i][0], corners[i][1]);
+            }
+            return points;
+        }
+
+        public int getCameraIndex() {
+            return cameraIndex;
+        }
+
+        public int getFrameWidth() {
+            return frameWidth;
+        }
+
+        public int getFrameHeight() {
+            return frameHeight;
+        }
+
+        public double getConfidence() {
+            return confidence;
+        }
+
+        public long getSavedAt() {
+            return savedAt;
+        }
+
+        private boolean isComplete() {
+            if (corners == null || corners.length != 4 || homography == null || homography.length != 9) return false;
+            for (double[] corner : corners) {
+                if (corner == null || corner.length != 2) return false;
+            }
+            return frameWidth > 0 && frameHeight > 0;
+        }
+    }
+
+    private static final class StoreFile {
+        int version = VERSION;
+        Map<String, Profile> profiles = new LinkedHashMap<>();
+    }
+
+    private final Path file;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    /** @param file where the profiles live, or null to keep nothing */
+    public CalibrationStore(Path file) {
+        this.file = file;
+    }
+
+    /** The store at -Dchess.calibrationFile (default calibration.json, empty = off). */
+    public static CalibrationStore fromProperties() {
+        String path = System.getProperty("chess.calibrationFile", "calibration.json");
+        return new CalibrationStore(path.isEmpty() ? null : Paths.get(path));
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    /** The stored profile for this source, or null if there is none (or no usable file). */
+    public Profile load(String sourceKey) {
+        Profile profile = readFile().profiles.get(sourceKey);
+        if (profile != null && !profile.isComplete()) {
+            System.err.println("Ignoring incomplete stored calibration for " + sourceKey);
+            return null;
+        }
+        return profile;
+    }
+
+    /**
+     * A profile for these corners, calibrated on this frame. The confidence is taken here so
+     * validate() knows what the corners scored on a board they certainly fit.
+     */
+    public static Profile createProfile(Point[] corners, Mat frame, int cameraIndex) {
+        Profile profile = new Profile();
+        profile.cameraIndex = cameraIndex;
+        profile.frameWidth = frame.width();
+        profile.frameHeight = frame.height();
+        profile.corners = new double[4][];
+        for (int i = 0; i < 4; i++) {
+            profile.corners[i] = new double[]{corners[i].x, corners[i].y};
+        }
+        Mat matrix = BoardWarp.standardMatrix(corners, BoardGeometry.FULL);
+        profile.homography = new double[9];
+        matrix.get(0, 0, profile.homography);
+        matrix.release();
+        profile.innerRatio = BoardDetector.INNER_BOARD_SIZE_CM / BoardDetector.OUTER_BOARD_SIZE_CM;
+        profile.confidence = BoardDetection.confidence(frame, corners);
+        profile.savedAt = System.currentTimeMillis();
+        return profile;
+    }
+
+    /** Stores the profile under this source, replacing the one before. Returns false on I/O errors. */
+    public boolean save(String sourceKey, Profile profile) {
+        if (file == null) return false;
+        StoreFile store = readFile();
+        store.profiles.put(sourceKey, profile);
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            // Write next to the file and move it over, so a crash never leaves half a file
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, gson.toJson(store));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not save calibration to " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Whether the stored corners still fit the board in this frame: same resolution and board
+     * dimensions, and a confidence of at least the acceptance confidence or about what the
+     * corners scored when saved, and never below MIN_CONFIDENCE. One small warp, a few ms.
+     */
+    public static boolean validate(Profile profile, Mat frame, double accept) {
+        if (frame.width() != profile.frameWidth || frame.height() != profile.frameHeight) {
+            System.out.println("Stored calibration is for " + profile.frameWidth + "x" + profile.frameHeight
+                    + ", camera delivers " + frame.width() + "x" + frame.height());
+            return false;
+        }
+        double innerRatio = BoardDetector.INNER_BOARD_SIZE_CM / BoardDetector.OUTER_BOARD_SIZE_CM;
+        if (Math.abs(profile.innerRatio - innerRatio) > 1e-9) {
+            System.out.println("Stored calibration is for another board size");
+            return false;
+        }
+        double confidence = BoardDetection.confidence(frame, profile.getCorners());
+        double needed = Math.max(MIN_CONFIDENCE, Math.min(accept, profile.confidence - SAVED_CONFIDENCE_SLACK));
+        System.out.printf("Stored calibration: confidence %.2f on the live frame (saved %.2f, needs %.2f)%n",
+                confidence, profile.confidence, needed);
+        return confidence >= needed;
+    }
+
+    private StoreFile readFile() {
+        if (file == null || !Files.exists(file)) return new StoreFile();
+        try {
+            StoreFile store = gson.fromJson(Files.readString(file), StoreFile.class);
+            if (store == null || store.profiles == null) return new StoreFile();
+            if (store.version != VERSION) {
+                System.err.println("Ignoring " + file + ": version " + store.version + ", expected " + VERSION);
+                return new StoreFile();
+            }
+            return store;
+        } catch (IOException | JsonParseException e) {
+            System.err.println("Ignoring unreadable calibration file " + file + ": " + e.getMessage());
+            return new StoreFile();
+        }
+    }
+}
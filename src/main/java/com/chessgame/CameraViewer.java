@@ -1,74 +1,113 @@
 package com.chessgame;
 
-import javafx.application.Platform;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.StackPane;
 import org.opencv.core.Mat;
-import org.opencv.imgcodecs.Imgcodecs;
-import org.opencv.videoio.VideoCapture;
-import org.opencv.core.MatOfByte;
 
-import java.io.ByteArrayInputStream;
+import java.util.concurrent.locks.LockSupport;
 
 
 public class CameraViewer extends StackPane {
+    public static final int PREVIEW_WIDTH = 400; // width of camera pane
+    public static final double DEFAULT_PREVIEW_FPS = 15.0;
+
     private final ImageView imageView = new ImageView();
-    private VideoCapture capture;
+    private final FramePresenter presenter = new FramePresenter(imageView);
     private volatile boolean running = false;
 
+    // FrameCapture owns the source on its own thread.
+    // Everybody else (preview, game loop, calibration) reads from its ring.
+    private final FrameCapture capture;
+    private Thread previewThread;
+    private volatile long previewPeriodNanos = (long) (1_000_000_000L / DEFAULT_PREVIEW_FPS);
+
     static {
         nu.pattern.OpenCV.loadLocally();
     }
 
     public CameraViewer() {
-        imageView.setFitWidth(400); // width of camera pane
+        this(new CameraFrameSource(1)); // 0 = default camera; try 1 or 2 for Camo
+    }
+
+    public CameraViewer(FrameSource source) {
+        this.capture = new FrameCapture(source);
+        imageView.setFitWidth(PREVIEW_WIDTH);
         imageView.setPreserveRatio(true);
         this.getChildren().add(imageView);
     }
 
     public void startCamera() {
-        capture = new VideoCapture(1); // 0 = default camera; try 1 or 2 for Camo
-        
-        if (!capture.isOpened()) {
-            System.out.println("❌ Cannot open camera.");
+        if (!capture.start()) {
             return;
         }
 
         running = true;
-        Thread thread = new Thread(() -> {
-            Mat frame = new Mat();
-            while (running) {
-                if (capture.read(frame)) {
-                    Image image = mat2Image(frame);
-                    Platform.runLater(() -> imageView.setImage(image));
-                }
+        previewThread = new Thread(this::previewLoop, "camera-preview");
+        previewThread.setDaemon(true);
+        previewThread.start();
+    }
+
+    /**
+     * Caps how often the preview repaints. The preview only exists for the operator,
+     * so every frame it skips is CPU left for detection.
+     */
+    public void setPreviewFps(double fps) {
+        previewPeriodNanos = fps > 0 ? (long) (1_000_000_000L / fps) : 0;
+    }
+
+    private void previewLoop() {
+        CapturedFrame shown = new CapturedFrame(); // small, reused: frames arrive already downscaled
+        long lastShown = CapturedFrame.WRITING;
+        long nextDue = System.nanoTime();
+        while (running) {
+            long wait = nextDue - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            // Nothing new, or the FX thread hasn't painted the last one yet: don't queue more work
+            if (capture.latestSequence() == lastShown || presenter.isRepaintPending()) {
+                LockSupport.parkNanos(2_000_000);
+                continue;
             }
-            frame.release();
-        });
-        thread.setDaemon(true);
-        thread.start();
+            if (capture.copyLatestFrameScaled(shown, PREVIEW_WIDTH)) {
+                lastShown = shown.getSequence();
+                presenter.show(shown.getMat());
+                nextDue = System.nanoTime() + previewPeriodNanos;
+            }
+        }
+        shown.release();
     }
 
     public void stopCamera() {
         running = false;
-        if (capture != null) {
-            capture.release();
+        if (previewThread != null) {
+            try {
+                previewThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
+        capture.stop();
     }
 
-    public Mat captureCurrentFrame() {
-        if (capture != null && capture.isOpened()) {
-            Mat frame = new Mat();
-            capture.read(frame);
-            return frame;
-        }
-        return null;
+    public FrameCapture getCapture() {
+        return capture;
+    }
+
+    /**
+     * Copies the newest frame into a caller-owned CapturedFrame, reusing its Mat.
+     * Never touches the device; returns false if no frame has arrived yet.
+     */
+    public boolean copyLatestFrame(CapturedFrame dst) {
+        return capture.copyLatestFrame(dst);
     }
 
-    private Image mat2Image(Mat frame) {
-        MatOfByte buffer = new MatOfByte();
-        Imgcodecs.imencode(".png", frame, buffer);
-        return new Image(new ByteArrayInputStream(buffer.toArray()));
+    /**
+     * Returns a fresh copy of the newest frame. Meant for one-off callers (calibration, undo);
+     * per-tick callers should use copyLatestFrame with a reused CapturedFrame.
+     */
+    public Mat captureCurrentFrame() {
+        return capture.captureCurrentFrame();
     }
 }
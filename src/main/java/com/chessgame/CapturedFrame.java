@@ -0,0 +1,64 @@
+package com.chessgame;
+
+import org.opencv.core.Mat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A frame plus the bookkeeping needed to hand it between threads.
+ * The same type is used for the slots inside a FrameRing and for the
+ * consumer-owned copies that readers fill from it.
+ */
+public class CapturedFrame {
+
+    // Marks a slot the capture thread is currently overwriting
+    static final long WRITING = -1;
+
+    final Mat mat = new Mat();
+    volatile long sequence = WRITING;
+    volatile long timestampNanos;
+
+    // Ring slots only: readers copying out of the slot, or OWNED while the capture thread fills it
+    static final int OWNED = -1;
+    final AtomicInteger pins = new AtomicInteger();
+
+    /** Reader side: keeps the writer off this slot until unpin(). False if it is being written. */
+    boolean tryPin() {
+        for (;;) {
+            int p = pins.get();
+            if (p == OWNED) return false;
+            if (pins.compareAndSet(p, p + 1)) return true;
+        }
+    }
+
+    void unpin() {
+        pins.decrementAndGet();
+    }
+
+    public Mat getMat() {
+        return mat;
+    }
+
+    /** Monotonic frame counter assigned by the ring, or -1 if nothing was captured yet. */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /** System.nanoTime() taken when the frame came off the device. */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /** How long ago this frame was captured. */
+    public long ageNanos() {
+        return System.nanoTime() - timestampNanos;
+    }
+
+    public boolean isEmpty() {
+        return sequence == WRITING || mat.empty();
+    }
+
+    public void release() {
+        mat.release();
+    }
+}
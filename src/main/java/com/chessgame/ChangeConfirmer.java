@@ -0,0 +1,151 @@
+package com.chessgame;
+
+/**
+ * Holds a change set back until it has been stable, so shadows and half-finished moves never
+ * reach the tracker.
+ *
+ * Every detection pass offers its ChangeReport. A non-empty changed-square mask becomes the
+ * candidate; it is CONFIRMED once the exact same mask has been seen on confirmFrames passes in
+ * a row. A confirmed mask is submitted once: while the board keeps showing it (e.g. after an illegal move) further passes are HELD
+ * instead of re-alerting. An empty mask clears everything. Only passes over a newer frame count:
+ * offering the same frame twice never adds a confirmation.
+ *
+ * The combined score of every square over the last frames is kept in a primitive ring, so the
+ * confirmed squares can be ranked on their average rather than on a single frame.
+ *
+ * Not thread-safe; driven by the detection thread.
+ */
+public class ChangeConfirmer {
+
+    public enum Decision {
+        /** No change on the board. */
+        IDLE,
+        /** A change that hasn't been stable long enough yet; look again soon. */
+        PENDING,
+        /** Stable change, hand it to the tracker now. */
+        CONFIRMED,
+        /** The change that was already submitted is still there; nothing to do. */
+        HELD
+    }
+
+    private final int confirmFrames;
+
+    // Ring of the last frames: 64 combined scores each, newest at head - 1
+    private final float[] scoreHistory;
+    private final int capacity;
+    private int head = 0;
+
+    private long candidateMask = 0;
+    private int candidateFrames = 0;
+    private long submittedMask = 0;
+    private long lastSequence = -1;
+
+    /** From -Dchess.confirmFrames (default given). */
+    public static ChangeConfirmer fromProperties(int defaultFrames) {
+        return new ChangeConfirmer(Integer.getInteger("chess.confirmFrames", defaultFrames));
+    }
+
+    /**
+     * @param confirmFrames passes a change set must be seen on in a row; 1 passes every change through
+     */
+    public ChangeConfirmer(int confirmFrames) {
+        if (confirmFrames < 1) {
+            throw new IllegalArgumentException("confirmFrames must be >= 1, got " + confirmFrames);
+        }
+        this.confirmFrames = confirmFrames;
+        this.capacity = confirmFrames;
+        this.scoreHistory = new float[capacity * 64];
+    }
+
+    /**
+     * @param frameSequence sequence of the frame the report was made from; a pass over a frame
+     *                      that was already offered is answered without counting it
+     */
+    public Decision offer(ChangeReport report, long frameSequence) {
+        long mask = report.getChangedMask();
+        if (mask == 0) {
+            reset();
+            lastSequence = frameSequence;
+            return Decision.IDLE;
+        }
+
+        if (frameSequence <= lastSequence) {
+            if (mask == submittedMask) return Decision.HELD;
+            return Decision.PENDING; // same pixels as last time; wait for a newer frame
+        }
+        lastSequence = frameSequence;
+
+        if (mask != candidateMask) {
+            candidateMask = mask;
+            candidateFrames = 0;
+        }
+        record(report);
+
+        if (mask == submittedMask) {
+            return Decision.HELD;
+        }
+        if (candidateFrames < confirmFrames) {
+            return Decision.PENDING;
+        }
+        submittedMask = mask;
+        return Decision.CONFIRMED;
+    }
+
+    private void record(ChangeReport report) {
+        int base = head * 64;
+        for (int sq = 0; sq < 64; sq++) {
+            scoreHistory[base + sq] = report.combinedScore(sq);
+        }
+        head = (head + 1) % capacity;
+        candidateFrames++;
+    }
+
+    /** Mean combined score of a square over the frames the current candidate has been seen on. */
+    public float meanScore(int sq) {
+        int frames = Math.min(candidateFrames, capacity);
+        if (frames == 0) return Float.NaN;
+        float sum = 0;
+        for (int i = 1; i <= frames; i++) {
+            int slot = (head - i + capacity) % capacity;
+            sum += scoreHistory[slot * 64 + sq];
+        }
+        return sum / frames;
+    }
+
+    /**
+     * The current candidate's square indices (ChangeReport order), strongest average score first;
+     * ties keep row-major order. Feed to ChessGameTracker.processChanges.
+     */
+    public int[] rankedSquares() {
+        int n = Long.bitCount(candidateMask);
+        int[] order = new int[n];
+        float[] means = new float[n];
+        int count = 0;
+        for (long m = candidateMask; m != 0; m &= m - 1) {
+            int sq = Long.numberOfTrailingZeros(m);
+            float mean = meanScore(sq);
+            // Insertion sort, at most a handful of squares; strictly greater moves ahead
+            int i = count++;
+            while (i > 0 && mean > means[i - 1]) {
+                order[i] = order[i - 1];
+                means[i] = means[i - 1];
+                i--;
+            }
+            order[i] = sq;
+            means[i] = mean;
+        }
+        return order;
+    }
+
+    public long getCandidateMask() {
+        return candidateMask;
+    }
+
+    /** Forgets the candidate and what was submitted, e.g. on an empty board diff or recalibration. */
+    public void reset() {
+        candidateMask = 0;
+        candidateFrames = 0;
+        submittedMask = 0;
+        lastSequence = -1;
+    }
+}
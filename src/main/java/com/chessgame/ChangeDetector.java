@@ -0,0 +1,279 @@
+package com.chessgame;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-square change detection between two warped boards: a square counts as changed when both
+ * its mean intensity diff and its mean edge diff beat the thresholds in ChessMoveLogic.
+ *
+ * The "before" side is a ReferenceBoard whose blurred/edge features were computed once when it
+ * was locked in, so a tick only processes the current frame. Subclasses build those features
+ * (buildReference) and compute the 64 score pairs (score); thresholds, the debug heatmap and
+ * the parallax filter live here so every backend decides the same way. Backends keep their
+ * per-tick Mats from call to call and register them with buffer(), so getAllocationCount can
+ * prove a steady-state call allocates nothing.
+ *
+ * detect/score are not thread-safe (one instance per detection thread); createReference only
+ * reads configuration and may be called from any thread. updateReference has a workspace of its
+ * own, but the caller must keep it from running while detect reads the same reference.
+ */
+public abstract class ChangeDetector {
+
+    /**
+     * Picks the backend from -Dchess.changeDetector=integral|square|parallel|vector (default
+     * integral). parallel is the square backend on -Dchess.changeThreads worker threads. vector
+     * lives in the separate vector source set (it needs --add-modules jdk.incubator.vector), so
+     * it is looked up by name and falls back to integral when it or the module is missing.
+     */
+    public static ChangeDetector create(BoardGeometry geometry) {
+        String backend = System.getProperty("chess.changeDetector", "integral");
+        switch (backend) {
+            case "square":
+                return new SquareChangeDetector(geometry);
+            case "integral":
+                return new IntegralChangeDetector(geometry);
+            case "parallel":
+                return new ParallelSquareChangeDetector(geometry);
+            case "vector":
+                try {
+                    return (ChangeDetector) Class.forName("com.chessgame.VectorChangeDetector")
+                            .getConstructor(BoardGeometry.class).newInstance(geometry);
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    System.out.println("Vector API not available (" + e + "), using the integral backend");
+                    return new IntegralChangeDetector(geometry);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown chess.changeDetector: " + backend);
+        }
+    }
+
+    protected final BoardGeometry geometry;
+    protected final Rect[] strictRects = new Rect[64];
+    protected final Size blurSize;
+    private final AdaptiveThresholds thresholds;
+
+    private final double[] intensityScores = new double[64];
+    private final double[] edgeScores = new double[64];
+
+    private final List<Mat> buffers = new ArrayList<>();
+    private long[] bufferAddr = new long[0];
+    private long allocations = 0;
+
+    private final Mat diffViz = buffer(); // debug heatmap, only touched on sampled debug ticks
+    private final Mat referenceGray = new Mat(); // updateReference only
+
+    protected ChangeDetector(BoardGeometry geometry) {
+        this.geometry = geometry;
+
+        int inset = geometry.scaled(5);
+        int blur = geometry.scaled(5) | 1; // Gaussian kernel must be odd
+        this.blurSize = new Size(blur, blur);
+        // Edge pixels per area grow as the image shrinks (edges stay ~1 px wide)
+        double edgeScale = 1.0 / geometry.getScale();
+
+        double[] baseIntensity = new double[64];
+        double[] baseEdge = new double[64];
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                int sq = row * 8 + col;
+                strictRects[sq] = geometry.strictSquareRect(row, col, inset);
+                baseIntensity[sq] = ChessMoveLogic.intensityThreshold(row, col);
+                baseEdge[sq] = ChessMoveLogic.edgeThreshold(row, col) * edgeScale;
+            }
+        }
+        this.thresholds = new AdaptiveThresholds(baseIntensity, baseEdge);
+    }
+
+    /** Computes the reference-side features into fresh Mats (never the per-tick workspace). */
+    protected abstract ReferenceBoard buildReference(Mat warped);
+
+    /**
+     * Fills blurred/edges for every region inside the warp, using gray as scratch. Entries that
+     * are still null get a new Mat; existing ones are overwritten in place.
+     */
+    protected abstract void computeFeatures(Mat warped, Mat gray, Mat[] blurred, Mat[] edges);
+
+    /**
+     * Fills intensity[sq] / edge[sq] (sq = row * 8 + col) with the mean absolute diff of the
+     * blurred gray square and of its Canny edges. Squares outside the warp are left as NaN.
+     */
+    protected abstract void score(ReferenceBoard reference, Mat warpedAfter, double[] intensity, double[] edge);
+
+    /**
+     * Locks in a warped board as the "before" side. The pixels are copied, so the caller may
+     * keep reusing its Mat. Safe to call from any thread.
+     */
+    public ReferenceBoard createReference(Mat warped) {
+        return buildReference(warped.clone());
+    }
+
+    /**
+     * Overwrites an existing reference with a new board of the same size: pixels and features
+     * go into the Mats it already holds, so a reference that is refreshed often (the background
+     * model) allocates nothing after the first build.
+     */
+    public void updateReference(ReferenceBoard reference, Mat warped) {
+        if (!reference.isCompatible(this)) {
+            throw new IllegalArgumentException("Reference was built by another backend or geometry");
+        }
+        warped.copyTo(reference.getWarped());
+        computeFeatures(reference.getWarped(), referenceGray, reference.blurred, reference.edges);
+        reference.version++;
+    }
+
+    /**
+     * One-shot comparison of two warped boards; builds a throwaway reference for warpedBefore.
+     * Per-tick callers should keep a ReferenceBoard and use detect(reference, frame).
+     */
+    public ChangeReport detect(Mat warpedBefore, Mat warpedAfter) {
+        ReferenceBoard reference = createReference(warpedBefore);
+        ChangeReport report = detect(reference, warpedAfter);
+        reference.release();
+        return report;
+    }
+
+    /**
+     * Compares the reference with a warped board of this detector's geometry: the 64 score
+     * pairs plus the squares that beat the thresholds, with the parallax filter applied.
+     */
+    public ChangeReport detect(ReferenceBoard reference, Mat warpedAfter) {
+        long start = System.nanoTime();
+        scoreOnly(reference, warpedAfter);
+        long scored = System.nanoTime();
+
+        long thresholdMask = 0;
+        boolean debugEnabled = DebugArtifacts.isEnabled();
+        boolean debug = debugEnabled && DebugArtifacts.wants("change_heatmap");
+        if (debug) warpedAfter.copyTo(diffViz);
+
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                int sq = row * 8 + col;
+                double intensityScore = intensityScores[sq];
+                double edgeScore = edgeScores[sq];
+                if (Double.isNaN(intensityScore)) continue; // square falls outside the warp
+
+                if (debugEnabled && (row == 6 || row == 4) && col == 4) {
+                    System.out.println("DEBUG: intensity: " + intensityScore + " - edge: " + edgeScore);
+                }
+
+                boolean isChanged = false;
+                if (intensityScore > thresholds.intensity(sq)) {
+                    if (edgeScore > thresholds.edge(sq)) {
+                        isChanged = true;
+                    } else if (debug) {
+                        Imgproc.rectangle(diffViz, strictRects[sq], new Scalar(255, 0, 0), 1);
+                    }
+                }
+
+                if (isChanged) {
+                    thresholdMask |= 1L << sq;
+                    if (debug) {
+                        Imgproc.rectangle(diffViz, strictRects[sq], new Scalar(0, 0, 255), 2);
+                    }
+                }
+            }
+        }
+
+        if (debug) {
+            DebugArtifacts.write("output/debug_change_heatmap.jpg", diffViz);
+        }
+
+        float[] intensity = new float[64];
+        float[] edge = new float[64];
+        for (int sq = 0; sq < 64; sq++) {
+            intensity[sq] = (float) intensityScores[sq];
+            edge[sq] = (float) edgeScores[sq];
+        }
+        long changedMask = ChessMoveLogic.resolveParallaxOrEnPassant(thresholdMask, intensity, edge);
+        return new ChangeReport(intensity, edge, thresholdMask, changedMask,
+                scored - start, System.nanoTime() - start);
+    }
+
+    /**
+     * Tells the detector a report came from a frame without a move (nothing changed, or the
+     * tracker rejected the change as noise), so its per-square thresholds can learn the noise.
+     */
+    public void observeIdle(ChangeReport report) {
+        thresholds.observeIdle(report);
+    }
+
+    public AdaptiveThresholds getThresholds() {
+        return thresholds;
+    }
+
+    /** Just the scoring step, without thresholds or debug output (benchmarks). */
+    void scoreOnly(ReferenceBoard reference, Mat warpedAfter) {
+        if (!reference.isCompatible(this)) {
+            throw new IllegalArgumentException("Reference was built by another backend or geometry");
+        }
+        Arrays.fill(intensityScores, Double.NaN);
+        Arrays.fill(edgeScores, Double.NaN);
+        score(reference, warpedAfter, intensityScores, edgeScores);
+        countMovedBuffers();
+    }
+
+    /** Scores from the last call, indexed row * 8 + col. Live arrays, don't modify. */
+    double[] lastIntensityScores() {
+        return intensityScores;
+    }
+
+    double[] lastEdgeScores() {
+        return edgeScores;
+    }
+
+    /** True if the square's rect lies fully inside a warp of the given size. */
+    protected boolean isInside(int sq, int rows, int cols) {
+        Rect r = strictRects[sq];
+        return r.x >= 0 && r.y >= 0 && r.x + r.width <= cols && r.y + r.height <= rows;
+    }
+
+    /** A working Mat whose (re)allocations are tracked by getAllocationCount. */
+    protected final Mat buffer() {
+        Mat m = new Mat();
+        buffers.add(m);
+        bufferAddr = Arrays.copyOf(bufferAddr, buffers.size());
+        return m;
+    }
+
+    /** For allocations buffer() can't see, e.g. ROI headers. */
+    protected void countAllocations(int n) {
+        allocations += n;
+    }
+
+    // OpenCV sizes the buffers on first use; a moved data pointer means it (re)allocated
+    private void countMovedBuffers() {
+        for (int i = 0; i < bufferAddr.length; i++) {
+            long addr = buffers.get(i).dataAddr();
+            if (addr != bufferAddr[i]) {
+                bufferAddr[i] = addr;
+                allocations++;
+            }
+        }
+    }
+
+    /**
+     * Number of native buffers and ROI headers this detector has (re)allocated so far, including
+     * Mats OpenCV resized behind our back. Stays flat once the first call has sized everything.
+     */
+    public long getAllocationCount() {
+        return allocations;
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    public void release() {
+        for (Mat m : buffers) m.release();
+        referenceGray.release();
+    }
+}
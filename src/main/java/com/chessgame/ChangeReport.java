@@ -0,0 +1,112 @@
+package com.chessgame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of one change-detection pass: the raw per-square scores, which squares crossed the
+ * thresholds, and how long it took.
+ *
+ * Squares are indexed sq = row * 8 + col in warp order (row 0 = rank 8, col 0 = file A); bit sq
+ * of a mask is set when that square changed. Scores are NaN for squares outside the warp.
+ * Immutable, so it can be handed to the FX thread as is.
+ */
+public final class ChangeReport {
+
+    private final float[] intensity;
+    private final float[] edge;
+    private final long thresholdMask;
+    private final long changedMask;
+    private final long scoringNanos;
+    private final long totalNanos;
+
+    /**
+     * @param thresholdMask squares that beat both thresholds
+     * @param changedMask   the subset left after the parallax filter
+     */
+    ChangeReport(float[] intensity, float[] edge, long thresholdMask, long changedMask,
+                 long scoringNanos, long totalNanos) {
+        this.intensity = intensity;
+        this.edge = edge;
+        this.thresholdMask = thresholdMask;
+        this.changedMask = changedMask;
+        this.scoringNanos = scoringNanos;
+        this.totalNanos = totalNanos;
+    }
+
+    /** Ranking score used to tell real moves from parallax shadows; edges weigh double. */
+    public static float combinedScore(float intensity, float edge) {
+        return intensity + edge * 2.0f;
+    }
+
+    /** "A8" for 0 ... "H1" for 63, the notation detection has always reported. */
+    public static String squareName(int sq) {
+        return (char) ('A' + sq % 8) + "" + (8 - sq / 8);
+    }
+
+    public boolean isEmpty() {
+        return changedMask == 0;
+    }
+
+    public int changedCount() {
+        return Long.bitCount(changedMask);
+    }
+
+    public boolean isChanged(int sq) {
+        return (changedMask & (1L << sq)) != 0;
+    }
+
+    public long getChangedMask() {
+        return changedMask;
+    }
+
+    /** Before the parallax filter; differs from getChangedMask only when a ghost square was dropped. */
+    public long getThresholdMask() {
+        return thresholdMask;
+    }
+
+    public float intensity(int sq) {
+        return intensity[sq];
+    }
+
+    public float edge(int sq) {
+        return edge[sq];
+    }
+
+    public float combinedScore(int sq) {
+        return combinedScore(intensity[sq], edge[sq]);
+    }
+
+    /** Copies, indexed by sq. */
+    public float[] getIntensityScores() {
+        return intensity.clone();
+    }
+
+    public float[] getEdgeScores() {
+        return edge.clone();
+    }
+
+    /** Time spent computing the 64 score pairs. */
+    public long getScoringNanos() {
+        return scoringNanos;
+    }
+
+    /** Scoring plus thresholds, parallax filter and debug output. */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /** Changed squares in row-major order, e.g. [B7, B6]. */
+    public List<String> squares() {
+        List<String> names = new ArrayList<>(changedCount());
+        for (long m = changedMask; m != 0; m &= m - 1) {
+            names.add(squareName(Long.numberOfTrailingZeros(m)));
+        }
+        return names;
+    }
+
+    @Override
+    public String toString() {
+        return squares().toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.chessgame;
+
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scaling of ParallelSquareChangeDetector from 1 to N worker threads against the sequential
+ * SquareChangeDetector, on two consecutive test images with a cached reference. Every thread
+ * count must reproduce the sequential scores bit for bit and the same changed squares.
+ *
+ * Usage: ChangeScalingBenchmark [before] [after] [iterations] [maxThreads]
+ */
+public class ChangeScalingBenchmark {
+
+    static {
+        OpenCV.loadLocally();
+    }
+
+    public static void main(String[] args) {
+        String beforePath = args.length > 0 ? args[0] : "src/main/resources/tests/dr/drhamle1.jpg";
+        String afterPath = args.length > 1 ? args[1] : "src/main/resources/tests/dr/drhamle2.jpg";
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int maxThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        Mat before = Imgcodecs.imread(beforePath);
+        Mat after = Imgcodecs.imread(afterPath);
+        if (before.empty() || after.empty()) {
+            System.err.println("Could not read " + beforePath + " / " + afterPath);
+            return;
+        }
+        Point[] corners = BoardDetector.findBoardCorners(before, before.clone());
+        if (corners == null) {
+            System.err.println("Could not detect the board in " + beforePath);
+            return;
+        }
+
+        BoardGeometry geometry = BoardGeometry.detection(
+                Integer.getInteger("chess.detectionResolution", BoardGeometry.DEFAULT_DETECTION_WIDTH));
+        Mat warpedBefore;
+        Mat warpedAfter;
+        BoardWarp boardWarp = new BoardWarp(corners, geometry);
+        try {
+            warpedBefore = boardWarp.warp(before);
+            warpedAfter = boardWarp.warp(after);
+        } finally {
+            boardWarp.release();
+        }
+
+        System.out.println("=== CHANGE SCORING SCALING: " + geometry.getWidth() + " px, 1.." + maxThreads
+                + " threads, " + iterations + " iterations, "
+                + Runtime.getRuntime().availableProcessors() + " cores available ===");
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            SquareChangeDetector sequential = new SquareChangeDetector(geometry);
+            ReferenceBoard reference = sequential.createReference(warpedBefore);
+            List<String> expectedChanges = sequential.detect(reference, warpedAfter).squares();
+            double[] expectedIntensity = sequential.lastIntensityScores().clone();
+            double[] expectedEdge = sequential.lastEdgeScores().clone();
+            LatencyStats baseline = time("sequential", sequential, reference, warpedAfter, iterations);
+            out.println(baseline.summary());
+
+            for (int threads = 1; threads <= maxThreads; threads++) {
+                ParallelSquareChangeDetector parallel = new ParallelSquareChangeDetector(geometry, threads);
+                ReferenceBoard parallelReference = parallel.createReference(warpedBefore);
+                List<String> changes = parallel.detect(parallelReference, warpedAfter).squares();
+                boolean identical = changes.equals(expectedChanges)
+                        && Arrays.equals(parallel.lastIntensityScores(), expectedIntensity)
+                        && Arrays.equals(parallel.lastEdgeScores(), expectedEdge);
+
+                LatencyStats stats = time("parallel x" + threads, parallel, parallelReference, warpedAfter, iterations);
+                out.printf("%s | speedup %.2fx | %s%n", stats.summary(),
+                        baseline.meanMillis() / stats.meanMillis(),
+                        identical ? "identical to sequential " + changes : "MISMATCH " + changes);
+
+                parallelReference.release();
+                parallel.release();
+            }
+            reference.release();
+            sequential.release();
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private static LatencyStats time(String name, ChangeDetector detector, ReferenceBoard reference,
+                                     Mat warpedAfter, int iterations) {
+        for (int i = 0; i < 10; i++) detector.scoreOnly(reference, warpedAfter);
+        LatencyStats stats = new LatencyStats(name, iterations);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            detector.scoreOnly(reference, warpedAfter);
+            stats.record(System.nanoTime() - start);
+        }
+        return stats;
+    }
+}
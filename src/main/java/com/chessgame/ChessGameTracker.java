@@ -127,6 +127,13 @@ public class ChessGameTracker {
         }
     }
 
+    /** Same as squareToCoords, for a ChangeReport square index (row 0 = rank 8, col 0 = file A). */
+    private int[] squareIndexToCoords(int sq) {
+        int file = sq % 8;
+        int rank = 7 - sq / 8;
+        return blackPOV ? new int[]{7 - rank, 7 - file} : new int[]{rank, file};
+    }
+
     /**
      * Converts logical chess coordinates to standard notation
      * considering the POV
@@ -171,26 +178,40 @@ public class ChessGameTracker {
         }
     }
 
+    /** Camera square names ("E2"); converted to indices for processChanges. */
     public MoveResult processChangedSquares(List<String> changedSquares) {
+        if (changedSquares == null) return processChanges(new int[0]);
+        int[] squares = new int[changedSquares.size()];
+        for (int i = 0; i < squares.length; i++) {
+            String s = changedSquares.get(i).toLowerCase();
+            squares[i] = (8 - (s.charAt(1) - '0')) * 8 + (s.charAt(0) - 'a');
+        }
+        return processChanges(squares);
+    }
+
+    /**
+     * Changed squares as ChangeReport indices, strongest change first (ChangeConfirmer's
+     * ranking), so when several from/to pairs would be legal the one the camera saw most
+     * clearly wins.
+     */
+    public MoveResult processChanges(int[] changedSquares) {
         if (isGameOver) {
             System.out.println(">>> GAME IS OVER. No more moves accepted. <<<");
             return MoveResult.noise();
         }
 
-        if (changedSquares == null || changedSquares.isEmpty()) {
+        if (changedSquares.length == 0) {
             return MoveResult.none();
         }
 
-        if (changedSquares.size() >= 4) {
+        if (changedSquares.length >= 4) {
             boolean touchesBackRank = false;
-            for (String s : changedSquares) {
-                // In algebraic notation (e.g., "e4"), the rank is at index 1
-                if (s.length() >= 2) {
-                    char rank = s.charAt(1);
-                    if (rank == '1' || rank == '8') {
-                        touchesBackRank = true;
-                        break;
-                    }
+            for (int sq : changedSquares) {
+                // Row 0 is rank 8, row 7 rank 1
+                int row = sq / 8;
+                if (row == 0 || row == 7) {
+                    touchesBackRank = true;
+                    break;
                 }
             }
             if (!touchesBackRank) {
@@ -198,13 +219,13 @@ public class ChessGameTracker {
             }
         }
 
-        if (changedSquares.size() > 6) {
+        if (changedSquares.length > 6) {
             return MoveResult.noise();
         }
         
         List<int[]> allChanges = new ArrayList<>();
-        for (String s : changedSquares) {
-            allChanges.add(squareToCoords(s));
+        for (int sq : changedSquares) {
+            allChanges.add(squareIndexToCoords(sq));
         }
 
         List<int[]> candidatesFrom = new ArrayList<>();
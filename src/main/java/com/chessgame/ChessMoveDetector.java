@@ -67,14 +67,14 @@ public class ChessMoveDetector {
         Mat warpedBefore = ChessMoveLogic.warpBoardStandardized(imgBefore, outerCorners);
         Mat warpedAfter = ChessMoveLogic.warpBoardStandardized(imgAfter, outerCorners);
 
-        if (BoardDetector.DEBUG_MODE) {
-            Imgcodecs.imwrite("output/debug_warped_before.jpg", warpedBefore);
-            Imgcodecs.imwrite("output/debug_warped_after.jpg", warpedAfter);
+        if (DebugArtifacts.wants("warped_pair")) {
+            DebugArtifacts.write("output/debug_warped_before.jpg", warpedBefore);
+            DebugArtifacts.write("output/debug_warped_after.jpg", warpedAfter);
         }
 
         // 4. DETECT CHANGES: Compare the squares
         System.out.println("\n=== Analyzing Changes ===");
-        List<String> changedSquares = ChessMoveLogic.detectSquareChanges(warpedBefore, warpedAfter);
+        List<String> changedSquares = ChessMoveLogic.detectSquareChanges(warpedBefore, warpedAfter).squares();
 
         System.out.println("\n-----------------------------");
         System.out.println("DETECTED MOVEMENTS: " + changedSquares);
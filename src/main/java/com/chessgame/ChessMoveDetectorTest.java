@@ -117,7 +117,9 @@ public class ChessMoveDetectorTest {
                 Mat warpedCurr = ChessMoveLogic.warpBoardStandardized(currImage, outerCorners);
 
                 // 4. Detect Visual Changes
-                List<String> changedSquares = ChessMoveLogic.detectSquareChanges(warpedPrev, warpedCurr);
+                List<String> changedSquares = ChessMoveLogic.detectSquareChanges(warpedPrev, warpedCurr).squares();
+                warpedPrev.release();
+                warpedCurr.release();
                 System.out.println("Visual Changes: " + changedSquares);
 
                 // 5. Identify and Validate Move
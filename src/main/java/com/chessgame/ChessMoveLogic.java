@@ -1,191 +1,104 @@
 package com.chessgame;
 
 import org.opencv.core.*;
-import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 public class ChessMoveLogic {
 
-    private static float lightLevel;
 
     /**
      * NEW: Standardized warping to ensure Before/After match pixel-for-pixel.
      * Uses the exact same geometry logic as extractSquareImages (Sky Buffer).
      */
     public static Mat warpBoardStandardized(Mat src, Point[] outerCorners) {
-        int warpedWidth = BoardDetector.VIRTUAL_RESOLUTION;
-        int skyBuffer = (int)(warpedWidth * 0.5);
-        int warpedHeight = warpedWidth + skyBuffer;
+        BoardGeometry geometry = BoardGeometry.FULL;
 
-        Point[] dstPoints = new Point[]{
-                new Point(0, skyBuffer),
-                new Point(warpedWidth, skyBuffer),
-                new Point(warpedWidth, warpedWidth + skyBuffer),
-                new Point(0, warpedWidth + skyBuffer)
-        };
-
-        Mat srcMat = new MatOfPoint2f(outerCorners);
-        Mat dstMat = new MatOfPoint2f(dstPoints);
-        Mat perspectiveMatrix = Imgproc.getPerspectiveTransform(srcMat, dstMat);
+        // One-shot path: callers that warp the same corners repeatedly should hold a BoardWarp
+        Mat perspectiveMatrix = BoardWarp.standardMatrix(outerCorners, geometry);
 
         Mat warped = new Mat();
-        Imgproc.warpPerspective(src, warped, perspectiveMatrix, new Size(warpedWidth, warpedHeight));
+        Imgproc.warpPerspective(src, warped, perspectiveMatrix, new Size(geometry.getWidth(), geometry.getHeight()));
+        perspectiveMatrix.release();
         return warped;
     }
 
     /**
-     * Detects changes between two already-warped board images.
+     * Detects changes between two already-warped board images (standard 800 px warp).
      */
-    public static List<String> detectSquareChanges(Mat warpedBefore, Mat warpedAfter) {
-    List<String> changes = new ArrayList<>();
-    // NEW: Map to store change scores for parallax filtering
-    Map<String, Double> scoreMap = new HashMap<>();
-
-    // Geometry calculation
-    double outerSize = BoardDetector.OUTER_BOARD_SIZE_CM;
-    double innerSize = BoardDetector.INNER_BOARD_SIZE_CM;
-    double borderRatio = BoardDetector.BORDER_WIDTH_CM / outerSize;
-
-    double innerStartPixel = BoardDetector.VIRTUAL_RESOLUTION * borderRatio;
-    double innerSizePixel = BoardDetector.VIRTUAL_RESOLUTION * (innerSize / outerSize);
-    double squareSize = innerSizePixel / 8.0;
-
-    int skyBuffer = (int)(BoardDetector.VIRTUAL_RESOLUTION * 0.5);
-
-    Mat diffViz = warpedAfter.clone();
-
-    for (int row = 0; row < 8; row++) {
-        for (int col = 0; col < 8; col++) {
-
-            double baseX = innerStartPixel + (col * squareSize);
-            double baseY = skyBuffer + innerStartPixel + (row * squareSize);
-
-            int inset = 5;
-            Rect strictRect = new Rect(
-                    (int)baseX + inset,
-                    (int)baseY + inset,
-                    (int)squareSize - (2 * inset),
-                    (int)squareSize - (2 * inset)
-            );
-
-            if (strictRect.x < 0 || strictRect.y < 0 ||
-                    strictRect.x + strictRect.width > warpedBefore.width() ||
-                    strictRect.y + strictRect.height > warpedBefore.height()) continue;
-
-            Mat roiBefore = new Mat(warpedBefore, strictRect);
-            Mat roiAfter = new Mat(warpedAfter, strictRect);
-
-            // --- STEP 1: Intensity ---
-            Mat grayBefore = new Mat();
-            Mat grayAfter = new Mat();
-            Imgproc.cvtColor(roiBefore, grayBefore, Imgproc.COLOR_BGR2GRAY);
-            Imgproc.cvtColor(roiAfter, grayAfter, Imgproc.COLOR_BGR2GRAY);
-
-            Imgproc.GaussianBlur(grayBefore, grayBefore, new Size(5, 5), 0);
-            Imgproc.GaussianBlur(grayAfter, grayAfter, new Size(5, 5), 0);
-
-            Mat diffIntensity = new Mat();
-            Core.absdiff(grayBefore, grayAfter, diffIntensity);
-            double intensityScore = Core.mean(diffIntensity).val[0];
-
-            // --- STEP 2: Edges ---
-            Mat edgesBefore = new Mat();
-            Mat edgesAfter = new Mat();
-
-            Imgproc.Canny(grayBefore, edgesBefore, 40, 100);
-            Imgproc.Canny(grayAfter, edgesAfter, 40, 100);
-
-            Mat diffEdges = new Mat();
-            Core.absdiff(edgesBefore, edgesAfter, diffEdges);
-            double edgeScore = Core.mean(diffEdges).val[0];
-
-            // --- STEP 3: Logic ---
-            double INTENSITY_THRESH;
-            double EDGE_THRESH;
-            double dynamicBlack = 2.0f;
-            double dynamicWhite = 1.0f;
-             if((row + col) % 2 != 0) {                
-                    INTENSITY_THRESH = 21.0 + (dynamicBlack * lightLevel);
-                    EDGE_THRESH = 5.0;
-                } else {
-                    if((row == 6 && col == 4) || (row == 4 && col == 4)){
-                        System.out.println("DEBUG: intensity: " + intensityScore + " - edge: " + edgeScore);
-                    }
-                    INTENSITY_THRESH = 12.0 + (dynamicWhite * lightLevel);
-                    EDGE_THRESH = 4.0;
-            }                   
-
-            boolean isChanged = false;
-
-            if (intensityScore > INTENSITY_THRESH) {
-                if (edgeScore > EDGE_THRESH) {
-                    isChanged = true;
-                } else {
-                    Imgproc.rectangle(diffViz, strictRect, new Scalar(255, 0, 0), 1);
-                }
-            }
-
-            if (isChanged) {
-                String chessNotation = (char)('A' + col) + "" + (8 - row);
-                changes.add(chessNotation);
-                
-                // NEW: Store the combined score to distinguish real moves from parallax shadows
-                // We weight edgeScore higher as it is the primary differentiator for solid pieces
-                scoreMap.put(chessNotation, intensityScore + (edgeScore * 2.0));
-
-                Imgproc.rectangle(diffViz, strictRect, new Scalar(0, 0, 255), 2);
-            }
+    public static ChangeReport detectSquareChanges(Mat warpedBefore, Mat warpedAfter) {
+        return detectSquareChanges(warpedBefore, warpedAfter, BoardGeometry.FULL);
+    }
 
-            roiBefore.release(); roiAfter.release();
-            grayBefore.release(); grayAfter.release();
-            diffIntensity.release();
-            edgesBefore.release(); edgesAfter.release(); diffEdges.release();
-        }
+    /**
+     * Same, for warps made with another geometry (e.g. the low-res detection warp).
+     * One-shot convenience; per-tick callers should keep a ChangeDetector around instead.
+     * Always the sequential integral backend: -Dchess.changeDetector=parallel would start and
+     * tear down a whole worker pool for this single pair.
+     */
+    public static ChangeReport detectSquareChanges(Mat warpedBefore, Mat warpedAfter, BoardGeometry geometry) {
+        ChangeDetector detector = new IntegralChangeDetector(geometry);
+        ChangeReport report = detector.detect(warpedBefore, warpedAfter);
+        detector.release();
+        return report;
     }
 
-    if (BoardDetector.DEBUG_MODE) {
-        Imgcodecs.imwrite("output/debug_change_heatmap.jpg", diffViz);
+    /**
+     * Mean gray-level diff a square must exceed to count as changed (tuned at 800 px). This is
+     * the floor; AdaptiveThresholds raises it per square when idle frames show more noise.
+     * It matches the old "mid" light mode (21/12 + 2/1), which was what the live app ran with.
+     */
+    static double intensityThreshold(int row, int col) {
+        return (row + col) % 2 != 0 ? 25.0 : 14.0;
     }
 
-    // NEW: Helper call to filter parallax
-    return resolveParallaxOrEnPassant(changes, scoreMap);
-}
+    /** Mean edge-map diff a square must also exceed, at 800 px (ChangeDetector rescales it). */
+    static double edgeThreshold(int row, int col) {
+        return (row + col) % 2 != 0 ? 5.0 : 4.0;
+    }
 
 // --- NEW HELPER FUNCTIONS ---
 
-private static List<String> resolveParallaxOrEnPassant(List<String> changes, Map<String, Double> scores) {
+/**
+ * Takes the squares that beat the thresholds (bit sq = row * 8 + col) and returns the ones that
+ * are really part of the move.
+ */
+static long resolveParallaxOrEnPassant(long changed, float[] intensity, float[] edge) {
     // Only apply logic if we detected exactly 3 changes
-    if (changes.size() != 3) {
-        return changes;
+    if (Long.bitCount(changed) != 3) {
+        return changed;
     }
 
     // Check if this is a valid En Passant trajectory
-    if (isEnPassantPattern(changes)) {
-        return changes; // It's a valid 3-square move, return as is
+    if (isEnPassantPattern(changed)) {
+        return changed; // It's a valid 3-square move, return as is
     }
 
     // If not En Passant, it's likely Parallax (Ghost square).
-    // Sort by score descending (Highest change confidence first)
-    changes.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+    // Drop the square with the lowest change confidence; on a tie the later square goes
+    int weakest = -1;
+    for (long m = changed; m != 0; m &= m - 1) {
+        int sq = Long.numberOfTrailingZeros(m);
+        if (weakest < 0 || ChangeReport.combinedScore(intensity[sq], edge[sq])
+                <= ChangeReport.combinedScore(intensity[weakest], edge[weakest])) {
+            weakest = sq;
+        }
+    }
 
-    // Return the top 2 squares (The real From/To squares)
-    return new ArrayList<>(changes.subList(0, 2));
+    // Keep the top 2 squares (The real From/To squares)
+    return changed & ~(1L << weakest);
 }
 
-private static boolean isEnPassantPattern(List<String> squares) {
+private static boolean isEnPassantPattern(long squares) {
     Set<Integer> files = new HashSet<>();
     Set<Integer> ranks = new HashSet<>();
 
-    for (String s : squares) {
-        files.add(s.charAt(0) - 'A');
-        ranks.add(Integer.parseInt(s.substring(1)));
+    for (long m = squares; m != 0; m &= m - 1) {
+        int sq = Long.numberOfTrailingZeros(m);
+        files.add(sq % 8);
+        ranks.add(sq / 8);
     }
 
     // A valid En Passant involves exactly 2 Files and 2 Ranks.
@@ -201,45 +114,11 @@ private static boolean isEnPassantPattern(List<String> squares) {
         int row = 7 - logicalRank; 
         int col = logicalFile;
 
-        // 2. Geometry Constants (Must match your training extraction exactly)
-        int warpedWidth = warpedBoard.width(); 
-        int skyBuffer = (int)(warpedWidth * 0.5); 
-        
-        double outerSize = BoardDetector.OUTER_BOARD_SIZE_CM;
-        double innerSize = BoardDetector.INNER_BOARD_SIZE_CM;
-        double borderRatio = BoardDetector.BORDER_WIDTH_CM / outerSize;
-        
-        double innerStartPixel = warpedWidth * borderRatio;
-        double innerSizePixel = warpedWidth * (innerSize / outerSize);
-        double squareSize = innerSizePixel / 8.0;
+        // 2. Geometry (Must match your training extraction exactly: full warp with sky buffer)
+        BoardGeometry geometry = new BoardGeometry(warpedBoard.width(), true);
 
-        // 3. Sky Buffer Adjustments
-        double baseX = innerStartPixel + (col * squareSize);
-        double baseY = skyBuffer + innerStartPixel + (row * squareSize); 
-
-        double baseExtraHeightRatio = 0.85;  
-        double extraWidthRatio = 0.3;       
-        int extraWidthPerSide = (int)(squareSize * extraWidthRatio / 2.0);
-
-        double rowAdjustment;
-        if (row == 0) rowAdjustment = baseExtraHeightRatio + 0.3; 
-        else if (row < 2) rowAdjustment = baseExtraHeightRatio + 0.2;
-        else if(row < 4) rowAdjustment = baseExtraHeightRatio;
-        else if(row < 6) rowAdjustment = baseExtraHeightRatio - 0.2;
-        else rowAdjustment = baseExtraHeightRatio - 0.3;
-
-        int extraHeight = (int)(squareSize * rowAdjustment);
-
-        // 4. Calculate Crop
-        int extendedX = (int)Math.max(0, baseX - extraWidthPerSide);
-        int extendedY = (int)Math.max(0, baseY - extraHeight);
-        int extendedWidth = (int)squareSize + (2 * extraWidthPerSide);
-        int extendedHeight = (int)squareSize + extraHeight;
-        
-        if (extendedX + extendedWidth > warpedBoard.width()) extendedWidth = warpedBoard.width() - extendedX;
-        if (extendedY + extendedHeight > warpedBoard.height()) extendedHeight = warpedBoard.height() - extendedY;
-
-        return new Mat(warpedBoard, new Rect(extendedX, extendedY, extendedWidth, extendedHeight)).clone();
+        // 3. Crop (use SquareCropper to get the same crop straight from the camera frame)
+        return new Mat(warpedBoard, geometry.extendedSquareRect(row, col)).clone();
     }
 
     /**
@@ -267,16 +146,4 @@ private static boolean isEnPassantPattern(List<String> squares) {
         int rank = 8 - row;
         return "" + file + rank;
     }
-
-    public static void setLightLevel(String currentLightMode) {
-        if(currentLightMode == "low") {
-            lightLevel = 3.0f;
-        }
-        if(currentLightMode == "mid") {
-            lightLevel = 2.0f;
-        }
-        if(currentLightMode == "high") {
-            lightLevel = 1.0f;
-        }
-    }
 }
\ No newline at end of file
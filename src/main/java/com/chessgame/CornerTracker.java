@@ -0,0 +1,371 @@
+package com.chessgame;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Follows the four outer board corners after calibration, so a bumped camera or board moves
+ * the warp along instead of turning every later diff into garbage.
+ *
+ * At calibration a small gray patch around each corner is cut from a low-res copy of the
+ * frame. Every update matches each patch (normalized cross-correlation, sub-pixel peak) in a
+ * small window around where that corner was last seen; three matches are enough, an unmatched
+ * fourth corner moves along with the affine motion of the other three. If fewer match (a jump
+ * beyond the search window), the global shift since seeding is estimated by phase correlation
+ * of the whole low-res frame and the patches are searched around that prediction once more.
+ *
+ * What matters for change detection is that the current warp lines up with the reference
+ * image, not with the true board: following a slow creep would leave the reference (taken
+ * with older corners) misaligned against every later warp. So the corners are compared with
+ * where they were measured when the reference was taken (anchor()): within the tolerance the
+ * warp keeps the reference's corners exactly (STEADY); beyond it the warp is moved by the
+ * motion since then (DRIFT), and listeners hear about it whenever that jumps the warp by more
+ * than the tolerance. Fewer than three matches is OCCLUDED (usually an arm over the board); if
+ * that lasts lostAfter updates in a row the board is LOST and the caller should run the full
+ * BoardDetector.findBoardCorners again and reseed.
+ *
+ * Patches are never re-cut from later frames, so small tracking errors can't accumulate.
+ * update() is for the detection thread only; anchor() may come from any thread and takes
+ * effect on the next update, with the corners the reference was actually warped with.
+ */
+public class CornerTracker {
+
+    public enum Status {
+        /** Within the tolerance of the reference's position; the warp is unchanged. */
+        STEADY,
+        /** Moved beyond the tolerance since the reference; getCorners() has the compensated warp. */
+        DRIFT,
+        /** Too few corners matched this time, nothing was changed. */
+        OCCLUDED,
+        /** Occluded for too long, or never seeded; needs a full board detection. */
+        LOST
+    }
+
+    /** The warp's corners for one warped frame, and where the board was seen in that frame. */
+    public static final class Anchor {
+        private final Point[] corners;
+        private final Point[] measured;
+
+        Anchor(Point[] corners, Point[] measured) {
+            this.corners = corners.clone();
+            this.measured = measured.clone();
+        }
+    }
+
+    public interface DriftListener {
+        /** The warp jumped by shiftPixels (full-frame pixels) to corners; called on the detection thread. */
+        void onDrift(Point[] corners, double shiftPixels);
+    }
+
+    public static final int TRACK_WIDTH = 640;
+    private static final int PATCH_RADIUS = 12;  // 25x25 px template, low-res
+    private static final int SEARCH_RADIUS = 24; // how far a corner may move per update, low-res
+    private static final double MIN_MATCH = 0.7;
+    private static final double SHAPE_TOLERANCE = 0.02; // corner distances a bump may change, relative
+
+    private final double tolerance;
+    private final int lostAfter;
+    private final List<DriftListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Mat[] patches = new Mat[4];
+    private final Point[] seedCorners = new Point[4]; // full-frame, where the patches were cut
+    private final Point[] seedCenters = new Point[4]; // low-res patch centers (whole pixels)
+    private double scale;     // low-res / full-frame
+    private final Mat seedFloat = new Mat(); // low-res seed frame for phaseCorrelate
+
+    // Full-frame, TL, TR, BR, BL
+    private Point[] corners;        // the warp's corners
+    private Point[] measured;       // where the last matching update saw the board
+    private Point[] anchorCorners;  // the warp's corners when the reference was taken
+    private Point[] anchorMeasured; // and where the board was seen then
+    private final AtomicReference<Anchor> pendingAnchor = new AtomicReference<>();
+
+    private int missedUpdates = 0;
+    private double lastShift = 0;
+
+    // Reused every update
+    private final Mat fullGray = new Mat();
+    private final Mat gray = new Mat();
+    private final Mat scores = new Mat();
+    private final Mat grayFloat = new Mat();
+
+    /** Tolerance from -Dchess.driftTolerance (full-frame px, default 4). */
+    public CornerTracker() {
+        this(Double.parseDouble(System.getProperty("chess.driftTolerance", "4.0")), 5);
+    }
+
+    /**
+     * @param tolerance  board movement since the reference, in full-frame pixels, that the warp ignores
+     * @param lostAfter  OCCLUDED updates in a row before the board counts as lost
+     */
+    public CornerTracker(double tolerance, int lostAfter) {
+        if (tolerance <= 0) throw new IllegalArgumentException("tolerance must be > 0, got " + tolerance);
+        if (lostAfter < 1) throw new IllegalArgumentException("lostAfter must be >= 1, got " + lostAfter);
+        this.tolerance = tolerance;
+        this.lostAfter = lostAfter;
+    }
+
+    public void addListener(DriftListener listener) {
+        listeners.add(listener);
+    }
+
+    /** Starts tracking from these corners, cutting the corner patches from this frame. */
+    public void reset(Point[] outerCorners, Mat frame) {
+        scale = Math.min(1.0, (double) TRACK_WIDTH / frame.width());
+        toSmallGray(frame);
+        for (int i = 0; i < 4; i++) {
+            if (patches[i] != null) patches[i].release();
+            Rect r = window(outerCorners[i], PATCH_RADIUS);
+            patches[i] = null;
+            if (r != null) {
+                Mat view = gray.submat(r);
+                patches[i] = view.clone();
+                view.release();
+            }
+            seedCorners[i] = outerCorners[i].clone();
+            seedCenters[i] = r == null ? null : new Point(r.x + PATCH_RADIUS, r.y + PATCH_RADIUS);
+        }
+        gray.convertTo(seedFloat, CvType.CV_32F);
+        corners = outerCorners.clone();
+        measured = outerCorners.clone();
+        anchorCorners = corners;
+        anchorMeasured = measured;
+        pendingAnchor.set(null);
+        missedUpdates = 0;
+        lastShift = 0;
+    }
+
+    /**
+     * A frame warped with these corners has just become the reference: from the next update on,
+     * movement is measured from where the board was in that frame.
+     */
+    public void anchor(Anchor anchor) {
+        pendingAnchor.set(anchor);
+    }
+
+    public Status update(Mat frame) {
+        if (corners == null) return Status.LOST;
+        Anchor anchor = pendingAnchor.getAndSet(null);
+        if (anchor != null) {
+            anchorCorners = anchor.corners;
+            anchorMeasured = anchor.measured;
+        }
+        toSmallGray(frame);
+
+        Point[] found = matchAll(measured);
+        if (count(found) < 3) {
+            found = matchAll(globalPrediction());
+        }
+        dropMisfit(found);
+
+        int matched = count(found);
+        if (matched < 3) {
+            return ++missedUpdates >= lostAfter ? Status.LOST : Status.OCCLUDED;
+        }
+        missedUpdates = 0;
+        if (matched == 3) {
+            int missing = 0;
+            while (found[missing] != null) missing++;
+            found[missing] = completeCorner(found, missing);
+        }
+        measured = found;
+
+        double shift = 0;
+        for (int i = 0; i < 4; i++) {
+            shift = Math.max(shift, distance(found[i], anchorMeasured[i]));
+        }
+        lastShift = shift;
+
+        Point[] previous = corners;
+        if (shift <= tolerance) {
+            corners = anchorCorners;
+            return Status.STEADY;
+        }
+        corners = new Point[4];
+        double jump = 0;
+        for (int i = 0; i < 4; i++) {
+            corners[i] = new Point(anchorCorners[i].x + found[i].x - anchorMeasured[i].x,
+                    anchorCorners[i].y + found[i].y - anchorMeasured[i].y);
+            jump = Math.max(jump, distance(corners[i], previous[i]));
+        }
+        if (jump > tolerance) {
+            for (DriftListener l : listeners) l.onDrift(corners.clone(), jump);
+        }
+        return Status.DRIFT;
+    }
+
+    private static double distance(Point a, Point b) {
+        return Math.hypot(a.x - b.x, a.y - b.y);
+    }
+
+    private Point[] matchAll(Point[] around) {
+        Point[] found = new Point[4];
+        for (int i = 0; i < 4; i++) {
+            found[i] = match(i, around[i]);
+        }
+        return found;
+    }
+
+    private static int count(Point[] found) {
+        int n = 0;
+        for (Point p : found) if (p != null) n++;
+        return n;
+    }
+
+    /**
+     * A bump moves the board (almost) rigidly, so the distances between its corners stay as
+     * seeded. If the shape is off but fits again without one particular corner, that corner's
+     * patch matched something else (a piece, a hand); it is dropped and completed from the
+     * other three.
+     */
+    private void dropMisfit(Point[] found) {
+        if (count(found) < 4 || fitsShape(found, -1)) return;
+        int culprit = -1;
+        for (int i = 0; i < 4; i++) {
+            if (fitsShape(found, i)) {
+                if (culprit >= 0) return; // ambiguous, keep all
+                culprit = i;
+            }
+        }
+        if (culprit >= 0) found[culprit] = null;
+    }
+
+    /** True if all corner distances, except those to corner skip, are within SHAPE_TOLERANCE of the seed's. */
+    private boolean fitsShape(Point[] found, int skip) {
+        for (int i = 0; i < 4; i++) {
+            for (int j = i + 1; j < 4; j++) {
+                if (i == skip || j == skip) continue;
+                double seeded = distance(seedCorners[i], seedCorners[j]);
+                if (Math.abs(distance(found[i], found[j]) - seeded) > SHAPE_TOLERANCE * seeded) return false;
+            }
+        }
+        return true;
+    }
+
+    /** The seed corners moved by the whole frame's shift since seeding (full-frame coordinates). */
+    private Point[] globalPrediction() {
+        gray.convertTo(grayFloat, CvType.CV_32F);
+        Point shift = Imgproc.phaseCorrelate(seedFloat, grayFloat);
+        Point[] predicted = new Point[4];
+        for (int i = 0; i < 4; i++) {
+            predicted[i] = new Point(seedCorners[i].x + shift.x / scale, seedCorners[i].y + shift.y / scale);
+        }
+        return predicted;
+    }
+
+    /** Where patch i matches best around a full-frame point, or null if nowhere well. */
+    private Point match(int i, Point around) {
+        Rect search = searchWindow(around);
+        if (patches[i] == null || search == null) return null;
+
+        Mat view = gray.submat(search); // header only, released right away
+        Imgproc.matchTemplate(view, patches[i], scores, Imgproc.TM_CCOEFF_NORMED);
+        view.release();
+        Core.MinMaxLocResult best = Core.minMaxLoc(scores);
+        if (best.maxVal < MIN_MATCH) return null;
+
+        int x = (int) best.maxLoc.x;
+        int y = (int) best.maxLoc.y;
+        if (x == 0 || y == 0 || x == scores.cols() - 1 || y == scores.rows() - 1) {
+            return null; // peak on the window's rim (or the frame's edge), the real one may be outside
+        }
+        // Top-left of the best template position -> patch center; the corner moved as much
+        double cx = search.x + x + peakOffset(scores, x, y, true) + PATCH_RADIUS;
+        double cy = search.y + y + peakOffset(scores, x, y, false) + PATCH_RADIUS;
+        return new Point(seedCorners[i].x + (cx - seedCenters[i].x) / scale,
+                seedCorners[i].y + (cy - seedCenters[i].y) / scale);
+    }
+
+    /** The unmatched corner, moved by the affine motion of the other three since seeding. */
+    private Point completeCorner(Point[] found, int missing) {
+        Point[] from = new Point[3];
+        Point[] to = new Point[3];
+        for (int i = 0, k = 0; i < 4; i++) {
+            if (i == missing) continue;
+            from[k] = seedCorners[i];
+            to[k++] = found[i];
+        }
+        MatOfPoint2f fromMat = new MatOfPoint2f(from);
+        MatOfPoint2f toMat = new MatOfPoint2f(to);
+        Mat affine = Imgproc.getAffineTransform(fromMat, toMat);
+        Point p = seedCorners[missing];
+        double[] row0 = {affine.get(0, 0)[0], affine.get(0, 1)[0], affine.get(0, 2)[0]};
+        double[] row1 = {affine.get(1, 0)[0], affine.get(1, 1)[0], affine.get(1, 2)[0]};
+        affine.release();
+        fromMat.release();
+        toMat.release();
+        return new Point(row0[0] * p.x + row0[1] * p.y + row0[2], row1[0] * p.x + row1[1] * p.y + row1[2]);
+    }
+
+    /** Sub-pixel offset of a score peak from a parabola through it and its two neighbours. */
+    private static double peakOffset(Mat scores, int x, int y, boolean horizontal) {
+        double before = horizontal ? scores.get(y, x - 1)[0] : scores.get(y - 1, x)[0];
+        double peak = scores.get(y, x)[0];
+        double after = horizontal ? scores.get(y, x + 1)[0] : scores.get(y + 1, x)[0];
+        double curvature = before - 2 * peak + after;
+        return curvature < 0 ? 0.5 * (before - after) / curvature : 0;
+    }
+
+    /** Low-res square window of the given radius around a full-frame point, or null if it leaves the frame. */
+    private Rect window(Point fullFrame, int radius) {
+        int cx = (int) Math.round(fullFrame.x * scale);
+        int cy = (int) Math.round(fullFrame.y * scale);
+        if (cx - radius < 0 || cy - radius < 0 || cx + radius >= gray.cols() || cy + radius >= gray.rows()) {
+            return null;
+        }
+        return new Rect(cx - radius, cy - radius, 2 * radius + 1, 2 * radius + 1);
+    }
+
+    /** Low-res search area around a full-frame point, clipped to the frame; null if no patch fits. */
+    private Rect searchWindow(Point fullFrame) {
+        int radius = PATCH_RADIUS + SEARCH_RADIUS;
+        int cx = (int) Math.round(fullFrame.x * scale);
+        int cy = (int) Math.round(fullFrame.y * scale);
+        int x1 = Math.max(0, cx - radius);
+        int y1 = Math.max(0, cy - radius);
+        int x2 = Math.min(gray.cols(), cx + radius + 1);
+        int y2 = Math.min(gray.rows(), cy + radius + 1);
+        int patch = 2 * PATCH_RADIUS + 1;
+        if (x2 - x1 < patch || y2 - y1 < patch) return null;
+        return new Rect(x1, y1, x2 - x1, y2 - y1);
+    }
+
+    private void toSmallGray(Mat frame) {
+        if (scale < 1.0) {
+            // Gray first: resizing one channel instead of three is most of the cost
+            Imgproc.cvtColor(frame, fullGray, Imgproc.COLOR_BGR2GRAY);
+            Imgproc.resize(fullGray, gray, new Size(), scale, scale, Imgproc.INTER_AREA);
+        } else {
+            Imgproc.cvtColor(frame, gray, Imgproc.COLOR_BGR2GRAY);
+        }
+    }
+
+    /** Corners the warp should use, in full-frame pixels (TL, TR, BR, BL), or null before reset. */
+    public Point[] getCorners() {
+        return corners == null ? null : corners.clone();
+    }
+
+    /** Where the last matching update saw the board (full-frame px), or null before reset. */
+    public Point[] getMeasured() {
+        return measured == null ? null : measured.clone();
+    }
+
+    /** Largest corner movement since the reference, as of the last update that matched (full-frame px). */
+    public double getLastShift() {
+        return lastShift;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+}
@@ -0,0 +1,169 @@
+package com.chessgame;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Debug images (heatmaps, threshold masks, warped boards) written off the hot path.
+ *
+ * Callers first ask wants(artifact), which is false when debugging is off or the artifact's
+ * sample isn't due, so a production run skips even the drawing. write() copies the image into
+ * a bounded queue that a single daemon thread drains with imwrite; when the disk can't keep up
+ * images are dropped, never waited for. Pending images are flushed on JVM exit.
+ *
+ * Switch with -Dchess.debug=true or setEnabled at runtime. Sampling per artifact with
+ * -Dchess.debugSample=change_heatmap:10,board_thresholds:1 (every Nth request is written,
+ * default every one) or setSampleEvery.
+ */
+public final class DebugArtifacts {
+
+    private static final int QUEUE_CAPACITY = 16;
+
+    private static volatile boolean enabled = Boolean.getBoolean("chess.debug");
+    private static final Map<String, Integer> sampleEvery = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> requests = new ConcurrentHashMap<>();
+
+    private static final BlockingQueue<Job> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong written = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final Object idle = new Object(); // notified when pending drops to 0
+    private static int pending = 0;                  // queued or being written, guarded by idle
+    private static Thread writer; // started on first write
+
+    static {
+        String spec = System.getProperty("chess.debugSample", "");
+        for (String entry : spec.split(",")) {
+            int colon = entry.indexOf(':');
+            if (colon > 0) {
+                setSampleEvery(entry.substring(0, colon).trim(), Integer.parseInt(entry.substring(colon + 1).trim()));
+            }
+        }
+    }
+
+    private DebugArtifacts() {
+    }
+
+    private static final class Job {
+        final String path;
+        final Mat image;
+
+        Job(String path, Mat image) {
+            this.path = path;
+            this.image = image;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /** Write every Nth requested image of this artifact; 0 turns it off. */
+    public static void setSampleEvery(String artifact, int n) {
+        if (n < 0) throw new IllegalArgumentException("sample rate must be >= 0, got " + n);
+        sampleEvery.put(artifact, n);
+    }
+
+    /**
+     * True if the caller should produce this artifact now. Counts as one sample, so ask once
+     * per frame and write all of that frame's images under the same name.
+     */
+    public static boolean wants(String artifact) {
+        if (!enabled) return false;
+        int every = sampleEvery.getOrDefault(artifact, 1);
+        if (every == 0) return false;
+        long n = requests.computeIfAbsent(artifact, k -> new AtomicLong()).getAndIncrement();
+        return n % every == 0;
+    }
+
+    /**
+     * Queues a copy of image for writing to path (parent directories are created). Returns at
+     * once; if the queue is full the image is dropped before anything is copied.
+     */
+    public static void write(String path, Mat image) {
+        if (queue.remainingCapacity() == 0) {
+            dropped.incrementAndGet();
+            return;
+        }
+        Mat copy = image.clone();
+        synchronized (idle) {
+            if (!queue.offer(new Job(path, copy))) {
+                copy.release();
+                dropped.incrementAndGet();
+                return;
+            }
+            pending++;
+        }
+        ensureWriter();
+    }
+
+    public static long getWrittenCount() {
+        return written.get();
+    }
+
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /** Waits until everything queued so far is on disk, or the timeout passes. */
+    public static boolean flush(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (idle) {
+            while (pending > 0) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) return false;
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(idle, left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static synchronized void ensureWriter() {
+        if (writer != null) return;
+        writer = new Thread(DebugArtifacts::drain, "debug-artifact-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(2000), "debug-artifact-flush"));
+    }
+
+    private static void drain() {
+        while (true) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                File parent = new File(job.path).getAbsoluteFile().getParentFile();
+                if (parent != null) parent.mkdirs();
+                if (Imgcodecs.imwrite(job.path, job.image)) {
+                    written.incrementAndGet();
+                } else {
+                    System.err.println("Could not write debug image " + job.path);
+                }
+            } finally {
+                job.image.release();
+                synchronized (idle) {
+                    if (--pending == 0) idle.notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.chessgame;
+
+import org.opencv.core.Mat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a FrameSource on its own thread and publishes every frame into a FrameRing.
+ * This is the only class that talks to the source; consumers only ever copy out of the ring,
+ * so it works the same with or without a UI attached.
+ */
+public class FrameCapture {
+
+    /**
+     * Sees every frame on the capture thread right after it is published, before any consumer
+     * can miss it. Must be quick and must not keep a reference to the frame.
+     */
+    public interface FrameListener {
+        void onFrame(CapturedFrame frame);
+    }
+
+    private final FrameSource source;
+    private final FrameRing frames = new FrameRing(FrameRing.DEFAULT_SLOTS);
+    private final List<FrameListener> listeners = new CopyOnWriteArrayList<>();
+    // A failed read (e.g. unplugged camera) waits before retrying, doubling up to the max
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private volatile boolean running = false;
+    private Thread captureThread;
+
+    public FrameCapture(FrameSource source) {
+        this.source = source;
+    }
+
+    public boolean start() {
+        if (!source.open()) {
+            System.out.println("❌ Cannot open " + source.describe());
+            return false;
+        }
+        System.out.println("Capturing from " + source.describe());
+
+        running = true;
+        captureThread = new Thread(this::captureLoop, "frame-capture");
+        captureThread.setDaemon(true);
+        captureThread.start();
+        return true;
+    }
+
+    /** The source is closed here, on the capture thread, so it is never closed under a read(). */
+    private void captureLoop() {
+        long backoff = MIN_BACKOFF_NANOS;
+        try {
+            while (running) {
+                CapturedFrame slot = frames.beginWrite();
+                if (source.read(slot.mat)) {
+                    backoff = MIN_BACKOFF_NANOS;
+                    frames.publish(slot, source.captureTimestampNanos());
+                    for (FrameListener l : listeners) {
+                        try {
+                            l.onFrame(slot);
+                        } catch (Exception e) {
+                            System.err.println("Frame listener failed: " + e.getMessage());
+                        }
+                    }
+                } else if (source.isFinished()) {
+                    System.out.println("End of " + source.describe());
+                    running = false;
+                } else {
+                    LockSupport.parkNanos(backoff); // stop() unparks
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+                }
+            }
+        } finally {
+            source.close();
+        }
+    }
+
+    public void addFrameListener(FrameListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops capturing and waits up to a second for the capture thread, which closes the source
+     * on its way out. A read that is still blocked after that closes it whenever it returns.
+     */
+    public void stop() {
+        running = false;
+        Thread thread = captureThread;
+        if (thread == null) {
+            source.close(); // never started
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            System.err.println("Capture thread still inside read(); " + source.describe()
+                    + " will be closed once it returns");
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public FrameSource getSource() {
+        return source;
+    }
+
+    /** Sequence of the newest frame, cheap enough to poll for "anything new?". */
+    public long latestSequence() {
+        return frames.latestSequence();
+    }
+
+    /** Copies the newest frame into a caller-owned CapturedFrame, reusing its Mat. */
+    public boolean copyLatestFrame(CapturedFrame dst) {
+        return frames.copyLatest(dst);
+    }
+
+    /** Buffered frames the camera source threw away to stay current (0 for replay sources). */
+    public long getStaleFramesDropped() {
+        return source instanceof CameraFrameSource ? ((CameraFrameSource) source).getStaleFramesDropped() : 0;
+    }
+
+    /** Copies the newest frame, downscaled to at most maxWidth pixels wide. */
+    public boolean copyLatestFrameScaled(CapturedFrame dst, int maxWidth) {
+        return frames.copyLatestScaled(dst, maxWidth);
+    }
+
+    /** Fresh copy of the newest frame for one-off callers, or null if nothing arrived yet. */
+    public Mat captureCurrentFrame() {
+        CapturedFrame copy = new CapturedFrame();
+        if (frames.copyLatest(copy)) {
+            return copy.getMat();
+        }
+        return null;
+    }
+}
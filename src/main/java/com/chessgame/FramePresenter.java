@@ -0,0 +1,129 @@
+package com.chessgame;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes OpenCV frames into a JavaFX ImageView without the PNG encode/decode round trip.
+ * Producers convert into a reused BGRA staging Mat; the FX thread copies that into the direct
+ * ByteBuffer behind a reused WritableImage inside PixelBuffer.updateBuffer, so the buffer being
+ * rendered is never written from another thread and same-sized frames cause no allocation.
+ *
+ * Repaints are coalesced: however fast show() is called, at most one repaint is queued
+ * on the FX thread, and it always paints whatever is in the buffer by then.
+ */
+public class FramePresenter {
+
+    private final ImageView target;
+
+    // Written by producers under the lock, read by the FX thread under the same lock
+    private final Mat staging = new Mat();
+
+    // Backing storage, FX thread only; replaced when the frame size changes
+    private ByteBuffer buffer;
+    private PixelBuffer<ByteBuffer> pixelBuffer;
+    private WritableImage image;
+    private Mat bgraView; // Mat header over 'buffer'
+
+    private final AtomicBoolean repaintQueued = new AtomicBoolean(false);
+
+    public FramePresenter(ImageView target) {
+        this.target = target;
+    }
+
+    /**
+     * Converts the frame into the staging Mat and repaints the target view.
+     * Safe to call from any thread; the pixel buffer itself is only touched on the FX thread.
+     */
+    public void show(Mat frame) {
+        if (frame == null || frame.empty()) return;
+
+        synchronized (this) {
+            copyInto(frame, staging);
+        }
+
+        if (Platform.isFxApplicationThread()) {
+            repaint();
+        } else if (repaintQueued.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                repaintQueued.set(false);
+                repaint();
+            });
+        }
+        // else: the repaint already in the FX queue will pick up these pixels
+    }
+
+    /** True while a repaint is waiting on the FX thread; producers can skip frames meanwhile. */
+    public boolean isRepaintPending() {
+        return repaintQueued.get();
+    }
+
+    // FX thread only
+    private void repaint() {
+        synchronized (this) {
+            if (staging.empty()) return;
+            ensureCapacity(staging.cols(), staging.rows());
+        }
+        if (target.getImage() != image) target.setImage(image);
+        pixelBuffer.updateBuffer(b -> {
+            synchronized (this) {
+                staging.copyTo(bgraView);
+            }
+            return null; // null = whole buffer is dirty
+        });
+    }
+
+    // FX thread only
+    private void ensureCapacity(int width, int height) {
+        if (image != null && (int) image.getWidth() == width && (int) image.getHeight() == height) return;
+
+        buffer = ByteBuffer.allocateDirect(width * height * 4);
+        pixelBuffer = new PixelBuffer<>(width, height, buffer, PixelFormat.getByteBgraPreInstance());
+        image = new WritableImage(pixelBuffer);
+        if (bgraView != null) bgraView.release();
+        bgraView = new Mat(height, width, CvType.CV_8UC4, buffer);
+    }
+
+    /**
+     * One-off conversion for callers that keep the image around (e.g. the manual corner picker).
+     * Each call gets its own buffer, so the result is never overwritten by later frames.
+     */
+    public static Image toImage(Mat frame) {
+        if (frame == null || frame.empty()) return null;
+        int width = frame.cols();
+        int height = frame.rows();
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(width * height * 4);
+        Mat bgra = new Mat(height, width, CvType.CV_8UC4, buffer);
+        copyInto(frame, bgra);
+        bgra.release();
+
+        PixelBuffer<ByteBuffer> pb = new PixelBuffer<>(width, height, buffer, PixelFormat.getByteBgraPreInstance());
+        return new WritableImage(pb);
+    }
+
+    // Alpha is always written as 255, so the "premultiplied" format needs no extra work.
+    private static void copyInto(Mat frame, Mat bgra) {
+        switch (frame.channels()) {
+            case 1:
+                Imgproc.cvtColor(frame, bgra, Imgproc.COLOR_GRAY2BGRA);
+                break;
+            case 4:
+                frame.copyTo(bgra);
+                break;
+            default:
+                Imgproc.cvtColor(frame, bgra, Imgproc.COLOR_BGR2BGRA);
+                break;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.chessgame;
+
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Small pool of preallocated frames shared by one capture thread and any number of readers.
+ *
+ * The writer fills slots round-robin and publishes the newest one. Readers copy the latest
+ * frame into their own CapturedFrame without taking a lock: they pin the slot for the length
+ * of the copy and the writer skips pinned slots, so a slot Mat is never refilled (or reallocated
+ * by a resolution change) while someone is reading it.
+ * Slot Mats keep their native buffers between frames, so steady-state capture does not allocate.
+ */
+public class FrameRing {
+
+    public static final int DEFAULT_SLOTS = 4;
+
+    private final CapturedFrame[] slots;
+    private final AtomicReference<CapturedFrame> latest = new AtomicReference<>();
+    private final AtomicLong latestSequence = new AtomicLong(CapturedFrame.WRITING);
+    // Only touched by the writer
+    private long nextSequence = 0;
+    private int nextSlot = 0;
+    private CapturedFrame writing;
+
+    public FrameRing(int slotCount) {
+        if (slotCount < 2) throw new IllegalArgumentException("FrameRing needs at least 2 slots");
+        slots = new CapturedFrame[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new CapturedFrame();
+        }
+    }
+
+    // --- WRITER SIDE (capture thread only) ---
+
+    /**
+     * Returns the slot to fill next and marks it as being written.
+     * Slots pinned by a reader and the current latest frame are skipped.
+     * If the fill fails, just call beginWrite() again: the same slot is handed out.
+     */
+    public CapturedFrame beginWrite() {
+        if (writing != null) return writing;
+        for (;;) {
+            for (int i = 0; i < slots.length; i++) {
+                CapturedFrame slot = slots[nextSlot];
+                nextSlot = (nextSlot + 1) % slots.length;
+                if (slot != latest.get() && slot.pins.compareAndSet(0, CapturedFrame.OWNED)) {
+                    slot.sequence = CapturedFrame.WRITING;
+                    writing = slot;
+                    return slot;
+                }
+            }
+            Thread.onSpinWait(); // every slot is being read; copies are short
+        }
+    }
+
+    public void publish(CapturedFrame slot, long timestampNanos) {
+        slot.timestampNanos = timestampNanos;
+        slot.sequence = nextSequence;
+        slot.pins.set(0); // volatile write, makes the pixels visible to readers
+        writing = null;
+        latest.set(slot);
+        latestSequence.set(nextSequence);
+        nextSequence++;
+    }
+
+    // --- READER SIDE (any thread) ---
+
+    /** Sequence number of the newest published frame, or -1 if none yet. Cheap enough to poll. */
+    public long latestSequence() {
+        return latestSequence.get();
+    }
+
+    /**
+     * Copies the newest frame (pixels, sequence and timestamp) into dst.
+     * dst's Mat is reused, so repeated calls with the same dst do not allocate.
+     * @return false only if nothing has been captured yet
+     */
+    public boolean copyLatest(CapturedFrame dst) {
+        return copyLatestScaled(dst, 0);
+    }
+
+    /**
+     * Like copyLatest, but frames wider than maxWidth are downscaled on the way out
+     * (INTER_AREA), so small consumers like the preview never pay for a full-size copy.
+     * @param maxWidth 0 = keep full size
+     * @return false only if nothing has been captured yet
+     */
+    public boolean copyLatestScaled(CapturedFrame dst, int maxWidth) {
+        for (;;) {
+            CapturedFrame src = latest.get();
+            if (src == null) return false;
+            // The writer never takes the latest slot, so this only fails if we were lapped
+            // between the two lines; the new 'latest' is newer anyway.
+            if (!src.tryPin()) continue;
+            try {
+                int width = src.mat.cols();
+                if (maxWidth > 0 && width > maxWidth) {
+                    int height = (int) Math.round(src.mat.rows() * (maxWidth / (double) width));
+                    Imgproc.resize(src.mat, dst.mat, new Size(maxWidth, height), 0, 0, Imgproc.INTER_AREA);
+                } else {
+                    src.mat.copyTo(dst.mat);
+                }
+                dst.timestampNanos = src.timestampNanos;
+                dst.sequence = src.sequence;
+                return true;
+            } finally {
+                src.unpin();
+            }
+        }
+    }
+
+    public void release() {
+        for (CapturedFrame slot : slots) {
+            slot.release();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.chessgame;
+
+import org.opencv.core.Mat;
+
+/**
+ * Where frames come from: a live camera, a recorded video or a folder of stills.
+ * Implementations are driven by a single thread (FrameCapture or a headless runner),
+ * so they do not need to be thread-safe.
+ */
+public interface FrameSource {
+
+    /** Opens the underlying device/file. Returns false if it is not available. */
+    boolean open();
+
+    /**
+     * Reads the next frame into dst, reusing its buffer where possible.
+     * Replay sources block here to honour their configured frame rate.
+     * @return false if no frame could be read (see isFinished() to tell EOF from a hiccup)
+     */
+    boolean read(Mat dst);
+
+    /** True once a replay source has run out of frames. Live sources never finish. */
+    default boolean isFinished() {
+        return false;
+    }
+
+    /**
+     * System.nanoTime() at which the frame returned by the last read() left the device.
+     * Sources that can't tell any better just report "now".
+     */
+    default long captureTimestampNanos() {
+        return System.nanoTime();
+    }
+
+    void close();
+
+    /** Short human-readable description for logs, e.g. "camera #1". */
+    String describe();
+
+    /**
+     * Builds a source from a spec string:
+     *   camera:1                 live camera index 1
+     *   video:path/to/file.mp4   video file at its native frame rate (video:file@fps to override, @0 = as fast as possible)
+     *   images:path/to/dir@2     directory of stills at 2 fps (@0 or no rate = as fast as possible)
+     *   images:path/to/dir@30*45 same, but at 30 fps with every still held for 45 frames
+     */
+    static FrameSource fromSpec(String spec) {
+        int colon = spec.indexOf(':');
+        String kind = colon < 0 ? spec : spec.substring(0, colon);
+        String target = colon < 0 ? "" : spec.substring(colon + 1);
+
+        double fps = Double.NaN;
+        int hold = 1;
+        int at = target.lastIndexOf('@');
+        if (at >= 0) {
+            String rate = target.substring(at + 1);
+            int star = rate.indexOf('*');
+            if (star >= 0) {
+                hold = Integer.parseInt(rate.substring(star + 1));
+                rate = rate.substring(0, star);
+            }
+            fps = Double.parseDouble(rate);
+            target = target.substring(0, at);
+        }
+
+        switch (kind) {
+            case "camera":
+                return new CameraFrameSource(target.isEmpty() ? 0 : Integer.parseInt(target));
+            case "video":
+                return Double.isNaN(fps) ? new VideoFileFrameSource(target) : new VideoFileFrameSource(target, fps);
+            case "images":
+                return new ImageSequenceFrameSource(target, Double.isNaN(fps) ? ReplayFrameSource.AS_FAST_AS_POSSIBLE : fps, hold);
+            default:
+                throw new IllegalArgumentException("Unknown frame source: " + spec);
+        }
+    }
+}
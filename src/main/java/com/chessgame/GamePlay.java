@@ -10,23 +10,20 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfByte;
 import org.opencv.core.Point;
-import org.opencv.imgcodecs.Imgcodecs;
 
 import com.chessgame.ChessGameTracker.MoveResult;
 
-import java.io.ByteArrayInputStream;
-import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 public class GamePlay extends Application {
@@ -42,6 +39,8 @@ public class GamePlay extends Application {
     // --- Debug Views for Warp Logic ---
     private ImageView prevWarpedView;
     private ImageView currentWarpedView;
+    private FramePresenter prevWarpedPresenter;
+    private FramePresenter currentWarpedPresenter;
     // ----------------------------------
 
     // returns of model
@@ -63,10 +62,35 @@ public class GamePlay extends Application {
     };
 
     // Game State Variables
-    private Point[] boardCorners;
-    private Mat prevWarpedImage;
-    private ScheduledExecutorService gameLoopExecutor;
-    private boolean isTracking = false;
+    private final VisionPipeline vision = new VisionPipeline(); // board corners + reference image
+    private final CapturedFrame loopFrame = new CapturedFrame(); // reused by every game loop tick
+
+    // Latency bookkeeping: how old frames are when the loop picks them up, and when detection is done
+    private final LatencyStats frameAgeStats = new LatencyStats("Frame age at pickup", 256);
+    private final LatencyStats glassToDetectionStats = new LatencyStats("Glass-to-detection", 256);
+    private static final int LATENCY_LOG_EVERY_TICKS = 10;
+
+    // Watches the board on the capture thread and tells us when a move has finished
+    private final MotionGate motionGate = new MotionGate();
+    private long lastPassMotionCount = -1; // game loop thread only
+    private long lastPassNanos = 0;        // game loop thread only
+    // A quiet board still gets a pass this often, so the background model follows slow light
+    // drift that never trips the motion gate (-Dchess.absorbSeconds, default 10)
+    private static final long ABSORB_INTERVAL_NANOS =
+            TimeUnit.SECONDS.toNanos(Long.getLong("chess.absorbSeconds", 10));
+    // Change sets must hold still before they reach the tracker (game loop thread only)
+    private final ChangeConfirmer confirmer = ChangeConfirmer.fromProperties(2);
+    private static final long CONFIRM_RECHECK_MILLIS = 250;
+    private ScheduledFuture<?> confirmRecheck; // at most one queued; game loop thread only
+    // Follow the board corners between passes (-Dchess.cornerTracking, default on)
+    private final boolean cornerTracking = Boolean.parseBoolean(System.getProperty("chess.cornerTracking", "true"));
+    private final BoardDetection boardDetection = BoardDetection.create(); // calibration and re-detection
+    // Calibrations from earlier sessions, keyed by -Dchess.source (-Dchess.calibrationFile)
+    private final CalibrationStore calibrationStore = CalibrationStore.fromProperties();
+    private final String sourceSpec = System.getProperty("chess.source", "camera:1");
+    private volatile CalibrationStore.Profile storedCalibration;
+    private volatile ScheduledExecutorService gameLoopExecutor;
+    private volatile boolean isTracking = false;
     private boolean computerIsBlack = false;
     private String modelPath = "models/detection_model.h5";
     private ChessModelLoader loader = null;
@@ -74,8 +98,6 @@ public class GamePlay extends Application {
     // NEW: Prevents spamming the API during the same turn
     private boolean isThinking = false; 
     
-    // NEW: Light Level Logic
-    private String currentLightMode = "mid"; // Default start value
     private ComboBox<Integer> intervalSelector; // Selector for loop speed
 
     @Override
@@ -90,7 +112,35 @@ public class GamePlay extends Application {
             e.printStackTrace();
         }
         // Initialize UI Components
-        cameraViewer = new CameraViewer();
+        // -Dchess.source=camera:1 | video:game.mp4 | images:src/main/resources/tests/dr@30*45
+        cameraViewer = new CameraViewer(FrameSource.fromSpec(sourceSpec));
+        storedCalibration = calibrationStore.isEnabled() ? calibrationStore.load(sourceSpec) : null;
+        cameraViewer.setPreviewFps(Double.parseDouble(
+                System.getProperty("chess.previewFps", String.valueOf(CameraViewer.DEFAULT_PREVIEW_FPS))));
+        cameraViewer.getCapture().addFrameListener(motionGate);
+        motionGate.addListener(new MotionGate.MotionListener() {
+            @Override
+            public void onMotionStarted(long frameSequence) {
+                if (isTracking) Platform.runLater(() -> statusLabel.setText("Status: TRACKING GAME [Motion]"));
+            }
+
+            @Override
+            public void onSettled(long frameSequence, long quietMillis) {
+                if (!isTracking) return;
+                Platform.runLater(() -> statusLabel.setText("Status: TRACKING GAME [Active]"));
+                ScheduledExecutorService executor = gameLoopExecutor;
+                try {
+                    if (executor != null) executor.execute(GamePlay.this::runDetectionPass);
+                } catch (RejectedExecutionException e) {
+                    // Loop was stopped in the meantime
+                }
+            }
+        });
+        // The pipeline moves its warp along on drift; the gate has its own copy of the corners
+        vision.getCornerTracker().addListener((corners, shift) -> {
+            motionGate.setBoardCorners(corners);
+            Platform.runLater(() -> log(String.format("Board moved %.1f px - following it.", shift)));
+        });
         cameraViewer.startCamera();
 
         // Initialize hand detector (expects local mediapipe server)
@@ -102,6 +152,9 @@ public class GamePlay extends Application {
         logArea.setEditable(false);
         logArea.setPrefHeight(150);
         logArea.setText(">>> Welcome. Align camera and click 'Start Realtime Game'.\n");
+        if (storedCalibration != null) {
+            log("Stored calibration found for " + sourceSpec + " - it is checked against the camera on start.");
+        }
 
         statusLabel = new Label("Status: IDLE");
         statusLabel.setStyle("-fx-text-fill: white; -fx-font-weight: bold; -fx-font-size: 14px;");
@@ -119,13 +172,22 @@ public class GamePlay extends Application {
         currentWarpedView = new ImageView();
         currentWarpedView.setFitWidth(200); 
         currentWarpedView.setPreserveRatio(true);
+
+        prevWarpedPresenter = new FramePresenter(prevWarpedView);
+        currentWarpedPresenter = new FramePresenter(currentWarpedView);
         // ------------------------------------
 
         // --- Buttons & Controls ---
         Button btnStartGame = new Button("START REALTIME GAME");
         btnStartGame.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white; -fx-font-weight: bold;");
         btnStartGame.setPrefHeight(40); // Height increased
-        btnStartGame.setOnAction(e -> startCalibrationSequence());
+        btnStartGame.setOnAction(e -> startCalibrationSequence(true));
+
+        // Ignores the stored calibration: detection and the manual picker, then saves the result
+        Button btnRecalibrate = new Button("Recalibrate");
+        btnRecalibrate.setStyle("-fx-background-color: #555; -fx-text-fill: white;");
+        btnRecalibrate.setPrefHeight(40);
+        btnRecalibrate.setOnAction(e -> startCalibrationSequence(false));
 
         Button btnStopGame = new Button("STOP / RESET");
         btnStopGame.setStyle("-fx-background-color: #f44336; -fx-text-fill: white;");
@@ -137,6 +199,15 @@ public class GamePlay extends Application {
         btnUndo.setPrefHeight(40); // Height increased
         btnUndo.setOnAction(e -> performUndo());
 
+        // Debug images are written off-thread and sampled; off by default (-Dchess.debug=true)
+        Button btnDebug = new Button(DebugArtifacts.isEnabled() ? "Debug: ON" : "Debug: OFF");
+        btnDebug.setStyle("-fx-background-color: #555; -fx-text-fill: white;");
+        btnDebug.setPrefHeight(40);
+        btnDebug.setOnAction(e -> {
+            DebugArtifacts.setEnabled(!DebugArtifacts.isEnabled());
+            btnDebug.setText(DebugArtifacts.isEnabled() ? "Debug: ON" : "Debug: OFF");
+        });
+
         Button btnFlip = new Button("Flip View");
         btnFlip.setStyle("-fx-background-color: #555; -fx-text-fill: white;");
         btnFlip.setPrefHeight(40); // Height increased
@@ -149,32 +220,6 @@ public class GamePlay extends Application {
             tracker = new ChessGameTracker(computerIsBlack);
         });
         
-        // --- NEW: Light Level Button ---
-        Button btnLightLevel = new Button("Light: MID");
-        btnLightLevel.setStyle("-fx-background-color: #FFC107; -fx-text-fill: black; -fx-font-weight: bold;");
-        btnLightLevel.setPrefHeight(40); // Height increased
-        btnLightLevel.setOnAction(e -> {
-            // Cycle: mid -> high -> low -> mid
-            switch (currentLightMode) {
-                case "mid":
-                    currentLightMode = "high";
-                    break;
-                case "high":
-                    currentLightMode = "low";
-                    break;
-                case "low":
-                    currentLightMode = "mid";
-                    break;
-            }
-            btnLightLevel.setText("Light: " + currentLightMode.toUpperCase());
-            // Call the static function on ChessMoveLogic
-            try {
-                ChessMoveLogic.setLightLevel(currentLightMode);
-            } catch (Exception ex) {
-                System.err.println("Method setLightLevel not found in ChessMoveLogic: " + ex.getMessage());
-            }
-        });
-
         // --- NEW: Time Interval Selector ---
         Label lblInterval = new Label("Loop(s):");
         lblInterval.setStyle("-fx-text-fill: white;");
@@ -187,10 +232,11 @@ public class GamePlay extends Application {
         // Add aiSuggestionLabel to your controlBox HBox
         HBox controlBox = new HBox(15, 
             btnStartGame, 
+            btnRecalibrate,
             btnStopGame, 
             btnFlip, 
             btnUndo, 
-            btnLightLevel, // Added here
+            btnDebug,
             lblInterval,   // Added label
             intervalSelector, // Added selector
             statusLabel, 
@@ -234,19 +280,13 @@ public class GamePlay extends Application {
             System.exit(0);
         });
         stage.show();
-        
-        // Set initial light level logic just in case
-        try {
-            ChessMoveLogic.setLightLevel(currentLightMode);
-        } catch (Exception ex) {
-            // Ignore if not yet implemented
-        }
     }
 
     /**
      * PHASE 1: CALIBRATION
+     * A stored calibration that still fits the live frame skips detection and the picker.
      */
-    private void startCalibrationSequence() {
+    private void startCalibrationSequence(boolean useStored) {
         if (isTracking) return;
 
         log("Starting Calibration...");
@@ -260,10 +300,27 @@ public class GamePlay extends Application {
                 return;
             }
 
-            // 2. Detect Corners (Auto)
-            Point[] detected = BoardDetector.findBoardCorners(frame, frame.clone());
+            // 2. Stored calibration, if the board hasn't moved since
+            CalibrationStore.Profile stored = useStored ? storedCalibration : null;
+            if (stored != null) {
+                if (CalibrationStore.validate(stored, frame, boardDetection.getAccept())) {
+                    vision.calibrate(stored.getCorners(), frame);
+                    Platform.runLater(() -> {
+                        log("Stored calibration still fits. Game Loop Starting...");
+                        prevWarpedPresenter.show(vision.getReferenceWarped());
+                        startGameLoop();
+                    });
+                    return;
+                }
+                Platform.runLater(() -> log("Stored calibration no longer fits - detecting the board."));
+            }
+
+            // 3. Detect Corners (Auto)
+            BoardDetection.Result found = boardDetection.detect(frame, frame.clone());
+            Platform.runLater(() -> log("Board detection: " + found));
+            Point[] detected = found.getCorners();
 
-            // 3. User Confirmation / Manual Adjustment (Blocking Call)
+            // 4. User Confirmation / Manual Adjustment (Blocking Call)
             Point[] finalCorners = BoardDetector.pickCornersManually(frame, detected);
 
             if (finalCorners == null) {
@@ -274,20 +331,27 @@ public class GamePlay extends Application {
                 return;
             }
 
-            // 4. Success - Store State
-            this.boardCorners = finalCorners;
-            this.prevWarpedImage = ChessMoveLogic.warpBoardStandardized(frame, finalCorners);
+            // 5. Success - Store State, and keep it for the next session
+            vision.calibrate(finalCorners, frame);
+            CalibrationStore.Profile profile = CalibrationStore.createProfile(finalCorners, frame, cameraIndex());
+            if (calibrationStore.save(sourceSpec, profile)) storedCalibration = profile;
             
             Platform.runLater(() -> {
                 log("Board Configured. Game Loop Starting...");
                 // Set initial image for debugging
-                prevWarpedView.setImage(matToImage(this.prevWarpedImage));
+                prevWarpedPresenter.show(vision.getReferenceWarped());
                 startGameLoop();
             });
 
         }).start();
     }
 
+    /** Index of the live camera, or -1 when playing from a recording. */
+    private int cameraIndex() {
+        FrameSource source = cameraViewer.getCapture().getSource();
+        return source instanceof CameraFrameSource ? ((CameraFrameSource) source).getCameraIndex() : -1;
+    }
+
     /**
      * PHASE 2: THE GAME LOOP
      */
@@ -295,123 +359,227 @@ public class GamePlay extends Application {
         isTracking = true;
         statusLabel.setText("Status: TRACKING GAME [Active]");
         
+        confirmer.reset();
+        confirmRecheck = null;
         gameLoopExecutor = Executors.newSingleThreadScheduledExecutor();
         
         // Get user selected interval
         long intervalSeconds = intervalSelector.getValue();
         
-        // Execute logic based on selected interval
+        // Settled-board events from the motion gate trigger a pass right away. The fixed-delay
+        // tick is only a safety net: it does nothing while the board is moving, and on a board
+        // that hasn't moved since the last pass it only runs one every ABSORB_INTERVAL_NANOS
+        // (with the background model on), which lets that pass absorb the drifted light.
+        motionGate.setBoardCorners(vision.getBoardCorners());
         gameLoopExecutor.scheduleWithFixedDelay(() -> {
-            try {
-                if (!isTracking) return;
+            if (motionGate.isEnabled()) {
+                if (motionGate.isMoving()) return;
+                boolean quiet = motionGate.getMotionCount() == lastPassMotionCount;
+                boolean absorbDue = vision.hasBackgroundModel()
+                        && System.nanoTime() - lastPassNanos >= ABSORB_INTERVAL_NANOS;
+                if (quiet && !absorbDue) return;
+            }
+            runDetectionPass();
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Tracks the corners into this frame; drift is applied by the pipeline itself. When the
+     * tracker has lost the board, runs the full detection once more and carries on from there.
+     * Returns false if this pass should be skipped.
+     */
+    private boolean followBoard(Mat frame) {
+        if (vision.trackBoard(frame) != CornerTracker.Status.LOST) return true;
+
+        Platform.runLater(() -> log("Board lost - re-detecting..."));
+        Point[] corners = boardDetection.detect(frame, frame.clone()).getCorners();
+        if (corners == null) {
+            Platform.runLater(() -> log("Board not found. Clear the corners or re-calibrate."));
+            return false;
+        }
+        vision.relocate(corners, frame);
+        motionGate.setBoardCorners(corners);
+        Platform.runLater(() -> log("Board found again."));
+        return true;
+    }
 
-                // 1. Capture
-                Mat currentFrame = cameraViewer.captureCurrentFrame();
-                if (currentFrame == null || currentFrame.empty()) return;
+    private static boolean isPromotion(String moveNotation) {
+        return moveNotation.contains("Q") || moveNotation.endsWith("Q");
+    }
 
-                // 1.5 Check for hand presence
-                try {
-                    boolean hand = handDetector != null && handDetector.isHandPresent(currentFrame, 0.5);
-                    if (hand) {
-                        Platform.runLater(() -> log("Hand detected — skipping."));
-                        return;
-                    }
-                } catch (Exception e) {
-                    System.err.println("Hand detection failed: " + e.getMessage());
+    /**
+     * One warp + diff + tracker round on the newest frame. Always runs on gameLoopExecutor.
+     */
+    private void runDetectionPass() {
+        try {
+            if (!isTracking) return;
+            lastPassMotionCount = motionGate.getMotionCount();
+            lastPassNanos = System.nanoTime();
+
+            // 1. Capture (latest frame from the ring, no device I/O on this thread)
+            if (!cameraViewer.copyLatestFrame(loopFrame)) return;
+            frameAgeStats.record(loopFrame.ageNanos());
+            Mat currentFrame = loopFrame.getMat();
+
+            // 1.5 Check for hand presence
+            try {
+                boolean hand = handDetector != null && handDetector.isHandPresent(currentFrame, 0.5);
+                if (hand) {
+                    Platform.runLater(() -> log("Hand detected — skipping."));
+                    return;
+                }
+            } catch (Exception e) {
+                System.err.println("Hand detection failed: " + e.getMessage());
+            }
+            
+            // 1.7 Follow the board if the camera or the board got bumped
+            if (cornerTracking && !followBoard(currentFrame)) return;
+
+            // 2. Warp 
+            Mat currentWarped = vision.warp(currentFrame);
+
+            // --- Update UI Debug Images ---
+            // The presenters copy pixels straight into their views' buffers
+            // and hop onto the FX thread themselves
+            currentWarpedPresenter.show(currentWarped);
+            prevWarpedPresenter.show(vision.getReferenceWarped());
+            // ------------------------------
+
+            // 3. Detect Changes
+            ChangeReport changes = vision.detectChanges(currentWarped);
+            glassToDetectionStats.record(loopFrame.ageNanos());
+            if (glassToDetectionStats.count() % LATENCY_LOG_EVERY_TICKS == 0) {
+                logLatency();
+            }
+            
+            // 3.5 Only changes that stay put for a few passes are real moves
+            ChangeConfirmer.Decision decision = confirmer.offer(changes, loopFrame.getSequence());
+            if (decision == ChangeConfirmer.Decision.PENDING) {
+                scheduleConfirmRecheck();
+                return;
+            }
+            cancelConfirmRecheck();
+
+            // If a stable visual change was detected, process logic
+            if (decision == ChangeConfirmer.Decision.CONFIRMED) {
+                System.out.println(changes);
+                Platform.runLater(() -> log("Visual change: " + changes));
+
+                // The FX callback below outlives this tick, and the warp buffer gets reused next tick
+                Mat movedWarped = currentWarped.clone();
+                CornerTracker.Anchor movedAnchor = vision.getWarpAnchor();
+
+                // 4. Process Move Logic
+                MoveResult result = tracker.processChanges(confirmer.rankedSquares());
+                System.out.println(result.moveNotation);
+                if (result.type == MoveResult.Type.NOISE) {
+                    // Nothing moved after all; let those squares learn this much noise
+                    vision.observeIdle(changes);
                 }
-                
-                // 2. Warp 
-                Mat currentWarped = ChessMoveLogic.warpBoardStandardized(currentFrame, boardCorners);
-
-                // --- Update UI Debug Images ---
-                // We must convert Mat to Image. Since we are on a background thread, 
-                // we wrap the update in Platform.runLater
-                Image curImg = matToImage(currentWarped);
-                Image prevImg = matToImage(prevWarpedImage);
-                Platform.runLater(() -> {
-                    if (curImg != null) currentWarpedView.setImage(curImg);
-                    if (prevImg != null) prevWarpedView.setImage(prevImg);
-                });
-                // ------------------------------
 
-                // 3. Detect Changes
-                List<String> changedSquares = ChessMoveLogic.detectSquareChanges(prevWarpedImage, currentWarped);
+                // The classifier wants a full-resolution crop of the promotion square only.
+                // Cut it from this frame now; the FX callback runs after the frame is reused.
+                Mat promotionCrop = null;
+                if (result.type == MoveResult.Type.VALID && isPromotion(result.moveNotation)) {
+                    String destStr = result.moveNotation.substring(2, 4);
+                    promotionCrop = vision.squareForModel(currentFrame, destStr.charAt(1) - '1', destStr.charAt(0) - 'a');
+                }
+                Mat pieceImg = promotionCrop;
                 
-                // If visual changes detected, process logic
-                if (!changedSquares.isEmpty()) {
-                    System.out.println(changedSquares);
-                    Platform.runLater(() -> log("Visual change: " + changedSquares));
-
-                    // 4. Process Move Logic
-                    MoveResult result = tracker.processChangedSquares(changedSquares);
-                    System.out.println(result.moveNotation);
-                    
-                    Platform.runLater(() -> {
-                    switch (result.type) {
-                        case NONE:
-                            break;
-
-                        case VALID:
-                            log(">>> MOVE PLAYED: " + result.moveNotation);
-
-                            // [START] AI PROMOTION CHECK
-                            if (result.moveNotation.contains("Q") || result.moveNotation.endsWith("Q")) {
-                                String destStr = result.moveNotation.substring(2, 4); 
-                                int destCol = destStr.charAt(0) - 'a';
-                                int destRow = destStr.charAt(1) - '1';
-                                Mat pieceImg = ChessMoveLogic.getSquareForModel(currentWarped, destRow, destCol);
-                                System.out.println("Goingto classifier");
-                                String detected = classifyPiece(pieceImg); 
-
-                                if (!detected.equals("Q")) {
-                                    log("AI CORRECTION: Promotion was " + detected);
-                                    tracker.overridePromotion(destRow, destCol, detected);
-                                    result.moveNotation = result.moveNotation.replace("Q", detected);
-                                }
-                            }
-                            // [END] AI PROMOTION CHECK
-                            
-                            tracker.printBoard(); 
-                            chessBoardUI.updateBoard(tracker.getBoardArray());
-                            
-                            // Check for Mate
-                            if (result.moveNotation.endsWith("#")) {
-                                showInfo("Game Over", "Checkmate detected!");
-                                stopGameLoop();
+                Platform.runLater(() -> {
+                switch (result.type) {
+                    case NONE:
+                        break;
+
+                    case VALID:
+                        log(">>> MOVE PLAYED: " + result.moveNotation);
+
+                        // [START] AI PROMOTION CHECK
+                        if (pieceImg != null) {
+                            String destStr = result.moveNotation.substring(2, 4); 
+                            int destCol = destStr.charAt(0) - 'a';
+                            int destRow = destStr.charAt(1) - '1';
+                            System.out.println("Goingto classifier");
+                            String detected = classifyPiece(pieceImg); 
+
+                            if (!detected.equals("Q")) {
+                                log("AI CORRECTION: Promotion was " + detected);
+                                tracker.overridePromotion(destRow, destCol, detected);
+                                result.moveNotation = result.moveNotation.replace("Q", detected);
                             }
-
-                            // Lock in the new board state
-                            prevWarpedImage = currentWarped; 
-                            
-                            // Update the debug view for "Previous" now that we have locked it in
-                            prevWarpedView.setImage(matToImage(prevWarpedImage));
-
-                            // --- Trigger Stockfish API ---
-                            checkAndTriggerStockfish();
-                            // -----------------------------
-                            break;
-
-                        case ILLEGAL:
-                            log("!!! ILLEGAL MOVE: " + result.details);
-                            showIllegalMoveAlert(result.details);
-                            break;
-
-                        case NOISE:
-                            if (!changedSquares.isEmpty()) log("... (Ignored noise) ...");
-                            break;
-                    }
-                });
-                } else {
-                    // Even if no visual change, we might want to check if it's our turn 
-                    // and we haven't asked AI yet (e.g. after game load)
-                    Platform.runLater(this::checkAndTriggerStockfish);
+                        }
+                        // [END] AI PROMOTION CHECK
+                        
+                        tracker.printBoard(); 
+                        chessBoardUI.updateBoard(tracker.getBoardArray());
+                        
+                        // Check for Mate
+                        if (result.moveNotation.endsWith("#")) {
+                            showInfo("Game Over", "Checkmate detected!");
+                            stopGameLoop();
+                        }
+
+                        // Lock in the new board state
+                        vision.acceptReference(movedWarped, movedAnchor);
+                        
+                        // Update the debug view for "Previous" now that we have locked it in
+                        prevWarpedPresenter.show(movedWarped);
+
+                        // --- Trigger Stockfish API ---
+                        checkAndTriggerStockfish();
+                        // -----------------------------
+                        break;
+
+                    case ILLEGAL:
+                        log("!!! ILLEGAL MOVE: " + result.details);
+                        showIllegalMoveAlert(result.details);
+                        break;
+
+                    case NOISE:
+                        if (!changes.isEmpty()) log("... (Ignored noise) ...");
+                        break;
                 }
+            });
+            } else if (decision == ChangeConfirmer.Decision.IDLE) {
+                vision.observeIdle(changes);
+                // Settled and unchanged: fold today's light into the reference
+                vision.absorbStatic(currentWarped);
+
+                // Even if no visual change, we might want to check if it's our turn 
+                // and we haven't asked AI yet (e.g. after game load)
+                Platform.runLater(this::checkAndTriggerStockfish);
+            }
 
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> log("Error in Game Loop: " + e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            Platform.runLater(() -> log("Error in Game Loop: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * The motion gate won't fire again for a still board, so look again ourselves. A recheck
+     * that is already queued (e.g. when a settle event ran this pass) is reused, not doubled.
+     */
+    private void scheduleConfirmRecheck() {
+        if (confirmRecheck != null) return;
+        ScheduledExecutorService executor = gameLoopExecutor;
+        try {
+            if (executor != null) {
+                confirmRecheck = executor.schedule(() -> {
+                    confirmRecheck = null;
+                    runDetectionPass();
+                }, CONFIRM_RECHECK_MILLIS, TimeUnit.MILLISECONDS);
             }
-        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // Loop was stopped in the meantime
+        }
+    }
+
+    private void cancelConfirmRecheck() {
+        if (confirmRecheck != null) {
+            confirmRecheck.cancel(false);
+            confirmRecheck = null;
+        }
     }
 
     /**
@@ -492,9 +660,11 @@ public class GamePlay extends Application {
 
     private void stopGameLoop() {
         isTracking = false;
+        motionGate.setBoardCorners(null);
         if (gameLoopExecutor != null && !gameLoopExecutor.isShutdown()) {
             gameLoopExecutor.shutdownNow();
         }
+        if (glassToDetectionStats.count() > 0) logLatency();
         statusLabel.setText("Status: STOPPED");
         tracker = new ChessGameTracker();
         chessBoardUI.updateBoard(tracker.getBoardArray());
@@ -503,19 +673,26 @@ public class GamePlay extends Application {
 
     // --- Helpers ---
     
-    // Helper method to convert OpenCV Mat to JavaFX Image
-    private Image matToImage(Mat mat) {
-        if (mat == null || mat.empty()) return null;
-        try {
-            MatOfByte buffer = new MatOfByte();
-            Imgcodecs.imencode(".png", mat, buffer);
-            return new Image(new ByteArrayInputStream(buffer.toArray()));
-        } catch (Exception e) {
-            System.err.println("Failed to convert Mat to Image: " + e.getMessage());
-            return null;
+    // Safe from any thread
+    private void logLatency() {
+        String msg = frameAgeStats.summary() + "\n" + glassToDetectionStats.summary()
+                + "\nStale camera frames dropped: " + cameraViewer.getCapture().getStaleFramesDropped();
+        System.out.println(msg);
+        if (Platform.isFxApplicationThread()) {
+            log(msg);
+        } else {
+            Platform.runLater(() -> log(msg));
         }
     }
 
+    public LatencyStats getFrameAgeStats() {
+        return frameAgeStats;
+    }
+
+    public LatencyStats getGlassToDetectionStats() {
+        return glassToDetectionStats;
+    }
+
     private void showIllegalMoveAlert(String details) {
         Alert alert = new Alert(Alert.AlertType.WARNING);
         alert.setTitle("Illegal Move Detected");
@@ -541,11 +718,11 @@ public class GamePlay extends Application {
         // 3. Reset Visual Tracking Base
         if (isTracking && cameraViewer != null) {
               Mat currentFrame = cameraViewer.captureCurrentFrame();
-              if (currentFrame != null && !currentFrame.empty() && boardCorners != null) {
-                  this.prevWarpedImage = ChessMoveLogic.warpBoardStandardized(currentFrame, boardCorners);
+              if (currentFrame != null && !currentFrame.empty() && vision.isCalibrated()) {
+                  vision.resetReference(currentFrame);
                   
                   // Update Debug UI
-                  prevWarpedView.setImage(matToImage(this.prevWarpedImage));
+                  prevWarpedPresenter.show(vision.getReferenceWarped());
                   
                   log("Visual tracker reset to current board state.");
               }
@@ -0,0 +1,145 @@
+package com.chessgame;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fast path of BoardDetection: the board's outer edges as the outermost long straight
+ * lines (HoughLinesP) at 800 px, corners where they cross.
+ *
+ * A line has to span 20% of the image to count, so pieces standing on the border don't break
+ * it; the price is that anything straight and long further out (a table edge, a sheet of
+ * paper) wins over the board. BoardDetection's confidence check is what catches those.
+ * Moved here from BoardDetect2; it now also rejects parallel or coinciding sides instead of
+ * returning NaN corners.
+ */
+public class HoughBoardStrategy implements BoardDetection.Strategy {
+
+    private static final double PROCESSING_WIDTH = 800.0;
+    private static final int MARGIN = 10; // lines this close to the image border are the border
+
+    @Override
+    public String name() {
+        return "hough";
+    }
+
+    @Override
+    public Point[] findCorners(Mat originalSrc, Mat debugImg) {
+        // 1. Scale down for reliable detection
+        double scale = 1.0;
+        Mat src = new Mat();
+        if (originalSrc.width() > PROCESSING_WIDTH) {
+            scale = PROCESSING_WIDTH / originalSrc.width();
+            Imgproc.resize(originalSrc, src, new Size(), scale, scale, Imgproc.INTER_AREA);
+        } else {
+            originalSrc.copyTo(src);
+        }
+
+        // 2. Pre-processing: blur slightly to remove wood grain noise, then Canny
+        Mat gray = new Mat();
+        Imgproc.cvtColor(src, gray, Imgproc.COLOR_BGR2GRAY);
+        Imgproc.GaussianBlur(gray, gray, new Size(5, 5), 0);
+        Mat edges = new Mat();
+        Imgproc.Canny(gray, edges, 30, 120);
+
+        // 3. Hough Lines Probabilistic
+        // minLineLength: 20% of image width. KEY FACTOR: Rooks are smaller than this, so they are ignored.
+        // maxLineGap: 10% of width. Bridges gaps if a piece blocks the line.
+        Mat lines = new Mat();
+        int minLength = (int) (src.width() * 0.20);
+        int maxGap = (int) (src.width() * 0.10);
+        Imgproc.HoughLinesP(edges, lines, 1, Math.PI / 180, 50, minLength, maxGap);
+        System.out.println("Detected " + lines.rows() + " strong lines.");
+
+        // 4. Filter Lines into Horizontal and Vertical
+        List<double[]> horizontals = new ArrayList<>();
+        List<double[]> verticals = new ArrayList<>();
+        for (int i = 0; i < lines.rows(); i++) {
+            double[] l = lines.get(i, 0);
+            double angle = Math.atan2(l[3] - l[1], l[2] - l[0]) * 180.0 / Math.PI;
+
+            // Draw all candidates faintly in gray
+            if (debugImg != null) drawLine(debugImg, l, new Scalar(200, 200, 200), 1, scale);
+
+            if (Math.abs(angle) < 20 || Math.abs(angle) > 160) {
+                horizontals.add(l);
+            } else if (Math.abs(angle) > 70 && Math.abs(angle) < 110) {
+                verticals.add(l);
+            }
+        }
+        src.release();
+        gray.release();
+        edges.release();
+        lines.release();
+        if (horizontals.isEmpty() || verticals.isEmpty()) return null;
+
+        // 5. Find the Extremes (Top, Bottom, Left, Right), ignoring lines on the image border
+        double[] top = null, bottom = null, left = null, right = null;
+        double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+        int width = (int) Math.round(originalSrc.width() * scale);
+        int height = (int) Math.round(originalSrc.height() * scale);
+
+        for (double[] h : horizontals) {
+            double avgY = (h[1] + h[3]) / 2.0;
+            if (avgY < MARGIN || avgY > height - MARGIN) continue;
+            if (avgY < minY) { minY = avgY; top = h; }
+            if (avgY > maxY) { maxY = avgY; bottom = h; }
+        }
+        for (double[] v : verticals) {
+            double avgX = (v[0] + v[2]) / 2.0;
+            if (avgX < MARGIN || avgX > width - MARGIN) continue;
+            if (avgX < minX) { minX = avgX; left = v; }
+            if (avgX > maxX) { maxX = avgX; right = v; }
+        }
+
+        if (top == null || bottom == null || left == null || right == null || top == bottom || left == right) {
+            System.out.println("Could not find 4 distinct sides.");
+            return null;
+        }
+
+        // Draw winning lines on debug
+        if (debugImg != null) {
+            drawLine(debugImg, top, new Scalar(0, 255, 0), 3, scale);
+            drawLine(debugImg, bottom, new Scalar(0, 255, 0), 3, scale);
+            drawLine(debugImg, left, new Scalar(0, 0, 255), 3, scale);
+            drawLine(debugImg, right, new Scalar(0, 0, 255), 3, scale);
+        }
+
+        // 6. Compute Intersections and scale back up
+        Point[] corners = {
+                computeIntersection(top, left),
+                computeIntersection(top, right),
+                computeIntersection(bottom, right),
+                computeIntersection(bottom, left)
+        };
+        for (int i = 0; i < 4; i++) {
+            if (corners[i] == null) return null;
+            corners[i] = new Point(corners[i].x / scale, corners[i].y / scale);
+        }
+        return corners;
+    }
+
+    /** Where two segments' lines cross, or null if they are parallel. */
+    private static Point computeIntersection(double[] l1, double[] l2) {
+        double x1 = l1[0], y1 = l1[1], x2 = l1[2], y2 = l1[3];
+        double x3 = l2[0], y3 = l2[1], x4 = l2[2], y4 = l2[3];
+
+        double d = (x1 - x2) * (y3 - y4) - (y1 - y2) * (x3 - x4);
+        if (d == 0) return null;
+
+        double x = ((x1 * y2 - y1 * x2) * (x3 - x4) - (x1 - x2) * (x3 * y4 - y3 * x4)) / d;
+        double y = ((x1 * y2 - y1 * x2) * (y3 - y4) - (y1 - y2) * (x3 * y4 - y3 * x4)) / d;
+        return new Point(x, y);
+    }
+
+    private static void drawLine(Mat img, double[] l, Scalar color, int thickness, double scale) {
+        Imgproc.line(img, new Point(l[0] / scale, l[1] / scale), new Point(l[2] / scale, l[3] / scale), color, thickness);
+    }
+}
@@ -0,0 +1,115 @@
+package com.chessgame;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays a directory of stills (e.g. src/main/resources/tests/dr) as if it were a camera.
+ *
+ * Files are ordered by the last number in their name, so "drhamle2" comes before "drhamle10",
+ * and files without a number ("drstart") come first.
+ *
+ * Each still can be held for several frames, which makes a folder of move photos look like
+ * a camera watching a board that sits still between moves (e.g. 30 fps, 45 frames = 1.5 s each).
+ */
+public class ImageSequenceFrameSource extends ReplayFrameSource {
+
+    private static final Pattern LAST_NUMBER = Pattern.compile("(\\d+)(?!.*\\d)");
+
+    private final String directory;
+    private final int framesPerImage;
+    private final List<File> files = new ArrayList<>();
+    private int nextIndex = 0;
+
+    private final Mat current = new Mat(); // decoded once, handed out framesPerImage times
+    private int repeatsLeft = 0;
+
+    /** @param fps how many stills per second to hand out, or AS_FAST_AS_POSSIBLE */
+    public ImageSequenceFrameSource(String directory, double fps) {
+        this(directory, fps, 1);
+    }
+
+    /** @param framesPerImage how many consecutive frames show the same still */
+    public ImageSequenceFrameSource(String directory, double fps, int framesPerImage) {
+        super(fps);
+        this.directory = directory;
+        this.framesPerImage = Math.max(1, framesPerImage);
+    }
+
+    @Override
+    public boolean open() {
+        files.clear();
+        nextIndex = 0;
+        repeatsLeft = 0;
+
+        File[] listed = new File(directory).listFiles((dir, name) -> {
+            String lower = name.toLowerCase();
+            return lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png");
+        });
+        if (listed != null) {
+            Arrays.sort(listed, Comparator.comparingLong(ImageSequenceFrameSource::sequenceNumber)
+                    .thenComparing(File::getName));
+            files.addAll(Arrays.asList(listed));
+        }
+
+        finished = files.isEmpty();
+        return !files.isEmpty();
+    }
+
+    @Override
+    protected boolean readNext(Mat dst) {
+        if (repeatsLeft > 0) {
+            repeatsLeft--;
+            current.copyTo(dst);
+            return true;
+        }
+        while (nextIndex < files.size()) {
+            File f = files.get(nextIndex++);
+            Mat img = Imgcodecs.imread(f.getPath());
+            if (img.empty()) {
+                System.err.println("Skipping unreadable image: " + f);
+                continue;
+            }
+            img.copyTo(current);
+            img.release();
+            repeatsLeft = framesPerImage - 1;
+            current.copyTo(dst);
+            return true;
+        }
+        return false;
+    }
+
+    /** Name of the file handed out by the last successful read, handy for logs. */
+    public String currentFileName() {
+        return nextIndex == 0 ? null : files.get(nextIndex - 1).getName();
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    @Override
+    public void close() {
+        files.clear();
+        current.release();
+    }
+
+    @Override
+    public String describe() {
+        return "images " + directory + " (" + files.size() + " files, " + describeRate(getFramePeriodNanos())
+                + (framesPerImage > 1 ? ", " + framesPerImage + " frames each" : "") + ")";
+    }
+
+    private static long sequenceNumber(File f) {
+        Matcher m = LAST_NUMBER.matcher(f.getName().replaceFirst("[.][^.]+$", ""));
+        return m.find() ? Long.parseLong(m.group(1)) : -1;
+    }
+}
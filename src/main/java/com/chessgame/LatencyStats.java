@@ -0,0 +1,67 @@
+package com.chessgame;
+
+import java.util.Arrays;
+
+/**
+ * Rolling window of latency samples with the few numbers we actually look at
+ * (mean, p50, p95, max). Cheap to record from hot threads; summaries sort a copy.
+ */
+public class LatencyStats {
+
+    private final String name;
+    private final long[] samples;
+    private int size = 0;
+    private int next = 0;
+    private long totalRecorded = 0;
+
+    public LatencyStats(String name, int windowSize) {
+        this.name = name;
+        this.samples = new long[windowSize];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (size < samples.length) size++;
+        totalRecorded++;
+    }
+
+    public synchronized long count() {
+        return totalRecorded;
+    }
+
+    public synchronized double meanMillis() {
+        if (size == 0) return 0;
+        long sum = 0;
+        for (int i = 0; i < size; i++) sum += samples[i];
+        return sum / 1e6 / size;
+    }
+
+    /** @param p percentile in [0, 1], e.g. 0.95 */
+    public synchronized double percentileMillis(double p) {
+        if (size == 0) return 0;
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int idx = (int) Math.min(size - 1, Math.max(0, Math.ceil(p * size) - 1));
+        return sorted[idx] / 1e6;
+    }
+
+    public synchronized double maxMillis() {
+        long max = 0;
+        for (int i = 0; i < size; i++) max = Math.max(max, samples[i]);
+        return max / 1e6;
+    }
+
+    public synchronized void reset() {
+        size = 0;
+        next = 0;
+        totalRecorded = 0;
+    }
+
+    /** One-line summary over the current window, e.g. for the log area. */
+    public String summary() {
+        if (count() == 0) return name + ": no samples";
+        return String.format("%s: mean %.1f ms | p50 %.1f | p95 %.1f | max %.1f (n=%d)",
+                name, meanMillis(), percentileMillis(0.50), percentileMillis(0.95), maxMillis(), count());
+    }
+}
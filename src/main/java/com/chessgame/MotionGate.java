@@ -0,0 +1,160 @@
+package com.chessgame;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Cheap "is anything moving over the board?" detector that runs on the capture thread.
+ *
+ * Every frame the board ROI is warped into a tiny grayscale thumbnail and compared with the
+ * previous one. The motion energy is the mean absolute difference of the busiest square
+ * (a single piece moving barely shows up in a whole-board mean). Hysteresis on that energy
+ * turns it into two events: motion started, and settled (quiet for settleMillis). The heavy
+ * pipeline subscribes to "settled" instead of polling, so it only runs once a move is finished.
+ */
+public class MotionGate implements FrameCapture.FrameListener {
+
+    public interface MotionListener {
+        /** Called on the capture thread; keep it short (hand work off to another thread). */
+        void onMotionStarted(long frameSequence);
+
+        /** Called on the capture thread once the board has been still for quietMillis. */
+        void onSettled(long frameSequence, long quietMillis);
+    }
+
+    public static final int THUMB_SIZE = 64;
+
+    // Mean abs diff (0-255) of the busiest square between consecutive thumbnails
+    private final double startThreshold;
+    private final double stopThreshold;
+    private final long settleNanos;
+
+    private final List<MotionListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Mat boardToThumb; // null until calibrated
+    private final Object transformLock = new Object(); // swap/release vs. the capture thread's warp
+
+    // Capture-thread state, reused every frame
+    private final Mat thumbColor = new Mat();
+    private final Mat thumb = new Mat();
+    private final Mat prevThumb = new Mat();
+    private final Mat diff = new Mat();
+    private final Mat squareEnergy = new Mat(); // 8x8, one mean per square
+    private final Size gridSize = new Size(8, 8);
+    private final Size thumbSize = new Size(THUMB_SIZE, THUMB_SIZE);
+    private final Size blurSize = new Size(3, 3);
+
+    private volatile boolean moving = false;
+    private volatile long motionCount = 0;
+    private volatile double lastEnergy = 0;
+    private long quietSince = 0;
+
+    public MotionGate() {
+        this(10.0, 5.0, 400);
+    }
+
+    public MotionGate(double startThreshold, double stopThreshold, long settleMillis) {
+        this.startThreshold = startThreshold;
+        this.stopThreshold = stopThreshold;
+        this.settleNanos = settleMillis * 1_000_000L;
+    }
+
+    public void addListener(MotionListener listener) {
+        listeners.add(listener);
+    }
+
+    /** Starts gating on the given outer board corners (TL, TR, BR, BL); null disables the gate. */
+    public void setBoardCorners(Point[] corners) {
+        Mat transform = null;
+        if (corners != null) {
+            MatOfPoint2f src = new MatOfPoint2f(corners);
+            MatOfPoint2f dst = new MatOfPoint2f(
+                    new Point(0, 0),
+                    new Point(THUMB_SIZE, 0),
+                    new Point(THUMB_SIZE, THUMB_SIZE),
+                    new Point(0, THUMB_SIZE));
+            transform = Imgproc.getPerspectiveTransform(src, dst);
+            src.release();
+            dst.release();
+        }
+        // Called on every tracker drift event; free the transform this one replaces
+        synchronized (transformLock) {
+            Mat old = boardToThumb;
+            boardToThumb = transform;
+            if (old != null) old.release();
+        }
+    }
+
+    public boolean isEnabled() {
+        return boardToThumb != null;
+    }
+
+    /** True between a "motion started" and the following "settled". */
+    public boolean isMoving() {
+        return moving;
+    }
+
+    /** Number of motion episodes seen so far; lets consumers tell "still the same quiet board". */
+    public long getMotionCount() {
+        return motionCount;
+    }
+
+    public double getLastEnergy() {
+        return lastEnergy;
+    }
+
+    @Override
+    public void onFrame(CapturedFrame frame) {
+        synchronized (transformLock) {
+            Mat transform = boardToThumb;
+            if (transform == null) {
+                prevThumb.release(); // start fresh once calibrated (again)
+                return;
+            }
+            // Warps have no INTER_AREA (it silently falls back to bilinear); the blur below
+            // takes care of the aliasing from sampling a full frame down to a thumbnail
+            Imgproc.warpPerspective(frame.getMat(), thumbColor, transform, thumbSize, Imgproc.INTER_LINEAR);
+        }
+        Imgproc.cvtColor(thumbColor, thumb, Imgproc.COLOR_BGR2GRAY);
+        Imgproc.GaussianBlur(thumb, thumb, blurSize, 0);
+
+        if (prevThumb.empty()) {
+            thumb.copyTo(prevThumb);
+            return;
+        }
+
+        Core.absdiff(thumb, prevThumb, diff);
+        Imgproc.resize(diff, squareEnergy, gridSize, 0, 0, Imgproc.INTER_AREA);
+        double energy = Core.minMaxLoc(squareEnergy).maxVal;
+        thumb.copyTo(prevThumb);
+        lastEnergy = energy;
+
+        long now = frame.getTimestampNanos();
+        if (!moving) {
+            if (energy > startThreshold) {
+                moving = true;
+                motionCount++;
+                quietSince = 0;
+                for (MotionListener l : listeners) l.onMotionStarted(frame.getSequence());
+            }
+            return;
+        }
+
+        if (energy > stopThreshold) {
+            quietSince = 0;
+            return;
+        }
+        if (quietSince == 0) quietSince = now;
+        if (now - quietSince >= settleNanos) {
+            moving = false;
+            long quietMillis = (now - quietSince) / 1_000_000L;
+            for (MotionListener l : listeners) l.onSettled(frame.getSequence(), quietMillis);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.chessgame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SquareChangeDetector with the eight ranks scored in parallel on a dedicated, bounded
+ * ForkJoinPool (-Dchess.changeThreads, default: all cores).
+ *
+ * Gray conversion still happens once on the calling thread; each rank task then runs the
+ * exact same per-square blur / Canny / absdiff as the sequential path, with its own scratch
+ * Mats, and writes only its own eight score slots. Scores and therefore changes are identical
+ * to SquareChangeDetector, independent of thread count or scheduling.
+ *
+ * One task per rank rather than per square: a square is ~0.02 ms of work at 256 px, too little
+ * to pay for a fork each.
+ */
+public class ParallelSquareChangeDetector extends SquareChangeDetector {
+
+    private final ForkJoinPool pool;
+    private final Scratch[] rankScratch = new Scratch[8];
+
+    public ParallelSquareChangeDetector(BoardGeometry geometry) {
+        this(geometry, Integer.getInteger("chess.changeThreads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    public ParallelSquareChangeDetector(BoardGeometry geometry, int threads) {
+        super(geometry);
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be >= 1, got " + threads);
+        }
+        // Own pool so change detection never queues behind (or starves) the common pool
+        this.pool = new ForkJoinPool(threads);
+        for (int row = 0; row < 8; row++) {
+            rankScratch[row] = new Scratch();
+        }
+    }
+
+    @Override
+    protected void scoreRanks(ReferenceBoard reference, double[] intensity, double[] edge) {
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                List<ForkJoinTask<?>> ranks = new ArrayList<>(8);
+                for (int row = 0; row < 8; row++) {
+                    final int r = row;
+                    ranks.add(ForkJoinTask.adapt(() -> scoreRank(reference, r, rankScratch[r], intensity, edge)));
+                }
+                invokeAll(ranks);
+            }
+        });
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void release() {
+        pool.shutdown();
+        try {
+            // Workers only run inside scoreRanks, so this returns at once unless a call is in flight
+            pool.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        super.release();
+    }
+}
@@ -0,0 +1,57 @@
+package com.chessgame;
+
+import org.opencv.core.Mat;
+
+/**
+ * The locked-in "before" board plus everything change detection derives from it.
+ *
+ * The reference only changes when a move is accepted, on calibration / undo, or when the
+ * background model absorbs a static frame, so its blurred gray image and Canny edges are
+ * computed then instead of on every tick. Built by ChangeDetector.createReference; the feature
+ * layout belongs to that backend (one Mat per square for SquareChangeDetector, one for the whole
+ * playing area for the AreaChangeDetector backends), so a reference only works with detectors
+ * of the same kind.
+ *
+ * ChangeDetector.updateReference overwrites it in place, reusing every Mat, and bumps version
+ * so caches of its pixels know to refresh. Whoever owns it must keep updates and detection
+ * apart (VisionPipeline does so with its reference lock).
+ */
+public class ReferenceBoard {
+
+    private final Class<? extends ChangeDetector> backend;
+    private final BoardGeometry geometry;
+    private final Mat warped;
+
+    // Per-region features; null entries are squares that fall outside the warp
+    final Mat[] blurred;
+    final Mat[] edges;
+
+    // Bumped by every in-place update; detection thread reads it under the owner's lock
+    int version = 0;
+
+    ReferenceBoard(ChangeDetector builder, Mat warped, Mat[] blurred, Mat[] edges) {
+        this.backend = builder.getClass();
+        this.geometry = builder.getGeometry();
+        this.warped = warped;
+        this.blurred = blurred;
+        this.edges = edges;
+    }
+
+    /** The warped board image itself (for display, or to build another backend's reference). */
+    public Mat getWarped() {
+        return warped;
+    }
+
+    boolean isCompatible(ChangeDetector detector) {
+        BoardGeometry other = detector.getGeometry();
+        return detector.getClass() == backend
+                && other.getWidth() == geometry.getWidth()
+                && other.getSkyBuffer() == geometry.getSkyBuffer();
+    }
+
+    public void release() {
+        warped.release();
+        for (Mat m : blurred) if (m != null) m.release();
+        for (Mat m : edges) if (m != null) m.release();
+    }
+}
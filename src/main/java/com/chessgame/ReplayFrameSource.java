@@ -0,0 +1,63 @@
+package com.chessgame;
+
+import org.opencv.core.Mat;
+
+/**
+ * Base for recorded sources. Handles frame pacing so a replay can either mimic a
+ * camera (fixed fps) or be pushed through as fast as the consumer can take it.
+ */
+public abstract class ReplayFrameSource implements FrameSource {
+
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+
+    private final long framePeriodNanos;
+    private long nextFrameDue = 0;
+    protected boolean finished = false;
+
+    protected ReplayFrameSource(double fps) {
+        this.framePeriodNanos = fps > 0 ? (long) (1_000_000_000L / fps) : 0;
+    }
+
+    @Override
+    public final boolean read(Mat dst) {
+        if (finished) return false;
+        waitForNextSlot();
+        boolean ok = readNext(dst);
+        if (!ok) finished = true;
+        return ok;
+    }
+
+    /** Reads the next recorded frame; return false at the end of the recording. */
+    protected abstract boolean readNext(Mat dst);
+
+    @Override
+    public boolean isFinished() {
+        return finished;
+    }
+
+    private void waitForNextSlot() {
+        if (framePeriodNanos == 0) return;
+
+        long now = System.nanoTime();
+        if (nextFrameDue == 0) nextFrameDue = now;
+        long wait = nextFrameDue - now;
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Schedule from the due time so the average rate stays exact, but never try to
+        // catch up with a burst after the consumer stalled us
+        nextFrameDue = Math.max(nextFrameDue, now) + framePeriodNanos;
+    }
+
+    protected static String describeRate(long framePeriodNanos) {
+        return framePeriodNanos == 0 ? "max speed" : String.format("%.1f fps", 1e9 / framePeriodNanos);
+    }
+
+    protected long getFramePeriodNanos() {
+        return framePeriodNanos;
+    }
+}
@@ -0,0 +1,140 @@
+package com.chessgame;
+
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+
+import com.chessgame.ChessGameTracker.MoveResult;
+
+
+/**
+ * Headless run of the realtime pipeline (warp -> change detection -> tracker) over a
+ * recorded FrameSource. No camera, no JavaFX, so it can run on a CI box and doubles as
+ * an end-to-end benchmark.
+ *
+ * Usage: ReplayPipeline [source-spec]   (default: images:src/main/resources/tests/dr)
+ * Frames are pulled synchronously, so every recorded frame is processed exactly once.
+ * Each still is one settled board, so change sets go to the tracker right away by default;
+ * hold stills for several frames (images:dir@0*3) and set -Dchess.confirmFrames to replay the
+ * live confirmation window.
+ */
+public class ReplayPipeline {
+
+    static {
+        OpenCV.loadLocally();
+    }
+
+    public static void main(String[] args) {
+        String spec = args.length > 0 ? args[0] : "images:src/main/resources/tests/dr";
+        FrameSource source = FrameSource.fromSpec(spec);
+        if (!source.open()) {
+            System.err.println("CRITICAL ERROR: Could not open " + spec);
+            return;
+        }
+        System.out.println("=== HEADLESS REPLAY: " + source.describe() + " ===");
+
+        ChessGameTracker tracker = new ChessGameTracker();
+        VisionPipeline vision = new VisionPipeline();
+        ChangeConfirmer confirmer = ChangeConfirmer.fromProperties(1);
+        boolean cornerTracking = Boolean.parseBoolean(System.getProperty("chess.cornerTracking", "true"));
+        BoardDetection boardDetection = BoardDetection.create();
+        Mat frame = new Mat();
+
+        int frames = 0;
+        int moves = 0;
+        int trackerCalls = 0;
+        int drifts = 0, redetections = 0;
+        long readNanos = 0, boardNanos = 0, warpNanos = 0, detectNanos = 0, trackerNanos = 0;
+
+        long t0 = System.nanoTime();
+        while (source.read(frame)) {
+            long t1 = System.nanoTime();
+            readNanos += t1 - t0;
+
+            // First frame calibrates. Headless, so there is no manual picker to fall back on.
+            if (!vision.isCalibrated()) {
+                BoardDetection.Result found = boardDetection.detect(frame, frame.clone());
+                Point[] corners = found.getCorners();
+                if (corners == null) {
+                    System.err.println("CRITICAL ERROR: Could not detect the board on the first frame.");
+                    source.close();
+                    return;
+                }
+                vision.calibrate(corners, frame);
+                System.out.println("Calibrated on first frame: " + found);
+                t0 = System.nanoTime();
+                continue;
+            }
+
+            if (cornerTracking) {
+                CornerTracker.Status board = vision.trackBoard(frame);
+                if (board == CornerTracker.Status.DRIFT) {
+                    drifts++;
+                } else if (board == CornerTracker.Status.LOST) {
+                    Point[] corners = boardDetection.detect(frame, frame.clone()).getCorners();
+                    if (corners != null) vision.relocate(corners, frame);
+                    redetections++;
+                }
+            }
+            long tb = System.nanoTime();
+            Mat warped = vision.warp(frame);
+            long t2 = System.nanoTime();
+
+            ChangeReport changed = vision.detectChanges(warped);
+            long t3 = System.nanoTime();
+
+            String label = source instanceof ImageSequenceFrameSource
+                    ? ((ImageSequenceFrameSource) source).currentFileName()
+                    : "frame " + (frames + 1);
+            ChangeConfirmer.Decision decision = confirmer.offer(changed, frames);
+            if (decision == ChangeConfirmer.Decision.CONFIRMED) {
+                trackerCalls++;
+                MoveResult result = tracker.processChanges(confirmer.rankedSquares());
+                if (result.type == MoveResult.Type.VALID) {
+                    moves++;
+                    vision.acceptReference(warped, vision.getWarpAnchor());
+                    System.out.println(label + ": " + changed + " -> " + result.moveNotation);
+                } else {
+                    if (result.type == MoveResult.Type.NOISE) vision.observeIdle(changed);
+                    System.out.println(label + ": " + changed + " -> " + result.type
+                            + (result.details != null ? " (" + result.details + ")" : ""));
+                }
+            } else if (decision == ChangeConfirmer.Decision.IDLE) {
+                vision.observeIdle(changed);
+                vision.absorbStatic(warped);
+                System.out.println(label + ": no change");
+            } else {
+                System.out.println(label + ": " + changed + " -> " + decision);
+            }
+            long t4 = System.nanoTime();
+
+            frames++;
+            boardNanos += tb - t1;
+            warpNanos += t2 - tb;
+            detectNanos += t3 - t2;
+            trackerNanos += t4 - t3;
+            t0 = System.nanoTime();
+        }
+        source.close();
+
+        System.out.println("\n=== REPLAY SUMMARY ===");
+        System.out.println("Frames processed: " + frames + ", moves accepted: " + moves
+                + ", tracker calls: " + trackerCalls);
+        if (cornerTracking) {
+            System.out.println("Board drift passes: " + drifts + ", full re-detections: " + redetections);
+        }
+        if (frames > 0) {
+            long total = readNanos + boardNanos + warpNanos + detectNanos + trackerNanos;
+            System.out.printf("Per frame: read %.2f ms | corners %.2f ms | warp %.2f ms | detect %.2f ms | tracker %.2f ms%n",
+                    ms(readNanos, frames), ms(boardNanos, frames), ms(warpNanos, frames), ms(detectNanos, frames),
+                    ms(trackerNanos, frames));
+            System.out.printf("Pipeline throughput (excluding read): %.1f fps%n",
+                    frames * 1e9 / (total - readNanos));
+        }
+        System.out.println("FEN: " + tracker.getFEN());
+    }
+
+    private static double ms(long nanos, int count) {
+        return nanos / 1e6 / count;
+    }
+}
@@ -0,0 +1,126 @@
+package com.chessgame;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * The original scoring: every square is blurred, Canny-filtered and diffed on its own.
+ *
+ * The reference keeps one blurred and one edge Mat per square, computed at lock-in. Per tick
+ * the current board is converted to gray once into a reused board-sized Mat, the 64 square
+ * ROIs over it are headers created up front, and blur / Canny / absdiff write into shared
+ * square-sized scratch Mats. BORDER_ISOLATED makes the blur behave as if each square had been
+ * copied out first, which is what the thresholds were tuned on. ParallelSquareChangeDetector
+ * runs the same per-rank code on a thread pool.
+ */
+public class SquareChangeDetector extends ChangeDetector {
+
+    // Board-sized gray image of the current frame and the ROI headers over it
+    private final Mat grayBoardAfter = buffer();
+    private final Mat[] roiAfter = new Mat[64];
+
+    // Square-sized scratch, reused by every square
+    private final Scratch scratch = new Scratch();
+
+    public SquareChangeDetector(BoardGeometry geometry) {
+        super(geometry);
+    }
+
+    /** Blur / Canny / absdiff outputs for one square at a time. */
+    protected final class Scratch {
+        final Mat blurAfter = buffer();
+        final Mat diffIntensity = buffer();
+        final Mat edgesAfter = buffer();
+        final Mat diffEdges = buffer();
+    }
+
+    @Override
+    protected ReferenceBoard buildReference(Mat warped) {
+        Mat[] blurred = new Mat[64];
+        Mat[] edges = new Mat[64];
+        Mat gray = new Mat();
+        computeFeatures(warped, gray, blurred, edges);
+        gray.release();
+        return new ReferenceBoard(this, warped, blurred, edges);
+    }
+
+    @Override
+    protected void computeFeatures(Mat warped, Mat gray, Mat[] blurred, Mat[] edges) {
+        Imgproc.cvtColor(warped, gray, Imgproc.COLOR_BGR2GRAY);
+        for (int sq = 0; sq < 64; sq++) {
+            if (!isInside(sq, gray.rows(), gray.cols())) continue;
+            Mat roi = gray.submat(strictRects[sq]);
+            if (blurred[sq] == null) {
+                blurred[sq] = new Mat();
+                edges[sq] = new Mat();
+            }
+            Imgproc.GaussianBlur(roi, blurred[sq], blurSize, 0, 0, Core.BORDER_DEFAULT | Core.BORDER_ISOLATED);
+            Imgproc.Canny(blurred[sq], edges[sq], 40, 100);
+            roi.release();
+        }
+    }
+
+    @Override
+    protected void score(ReferenceBoard reference, Mat warpedAfter, double[] intensity, double[] edge) {
+        ensureWorkspace(warpedAfter.rows(), warpedAfter.cols());
+        Imgproc.cvtColor(warpedAfter, grayBoardAfter, Imgproc.COLOR_BGR2GRAY);
+        scoreRanks(reference, intensity, edge);
+    }
+
+    /** Scores all eight ranks once the gray board is ready; sequential here. */
+    protected void scoreRanks(ReferenceBoard reference, double[] intensity, double[] edge) {
+        for (int row = 0; row < 8; row++) {
+            scoreRank(reference, row, scratch, intensity, edge);
+        }
+    }
+
+    /**
+     * Scores the eight squares of one rank. Only reads shared state and writes its own eight
+     * score slots, so ranks with separate scratch can run concurrently.
+     */
+    protected final void scoreRank(ReferenceBoard reference, int row, Scratch scratch,
+                                   double[] intensity, double[] edge) {
+        for (int sq = row * 8; sq < row * 8 + 8; sq++) {
+            if (roiAfter[sq] == null || reference.blurred[sq] == null) continue;
+
+            // --- STEP 1: Intensity ---
+            Imgproc.GaussianBlur(roiAfter[sq], scratch.blurAfter, blurSize, 0, 0, Core.BORDER_DEFAULT | Core.BORDER_ISOLATED);
+
+            Core.absdiff(reference.blurred[sq], scratch.blurAfter, scratch.diffIntensity);
+            intensity[sq] = Core.mean(scratch.diffIntensity).val[0];
+
+            // --- STEP 2: Edges ---
+            Imgproc.Canny(scratch.blurAfter, scratch.edgesAfter, 40, 100);
+
+            Core.absdiff(reference.edges[sq], scratch.edgesAfter, scratch.diffEdges);
+            edge[sq] = Core.mean(scratch.diffEdges).val[0];
+        }
+    }
+
+    /**
+     * (Re)builds the board-sized gray Mat and the 64 ROI headers. Runs on the first call and
+     * again only if the warp size changes; the scratch Mats are sized by OpenCV on first use.
+     */
+    private void ensureWorkspace(int rows, int cols) {
+        if (grayBoardAfter.rows() == rows && grayBoardAfter.cols() == cols) return;
+
+        grayBoardAfter.create(rows, cols, CvType.CV_8UC1);
+
+        for (int sq = 0; sq < 64; sq++) {
+            if (roiAfter[sq] != null) roiAfter[sq].release();
+            boolean inside = isInside(sq, rows, cols);
+            roiAfter[sq] = inside ? grayBoardAfter.submat(strictRects[sq]) : null;
+            if (inside) countAllocations(1);
+        }
+    }
+
+    @Override
+    public void release() {
+        for (Mat roi : roiAfter) {
+            if (roi != null) roi.release();
+        }
+        super.release();
+    }
+}
@@ -0,0 +1,69 @@
+package com.chessgame;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Classifier crops straight from the camera frame, one square at a time.
+ *
+ * getSquareForModel needs a whole 800x1200 warp to cut out one square. Here each square gets
+ * its own homography instead: the board matrix followed by a shift that moves the square's
+ * extended crop rect to the origin. Warping with that into a crop-sized Mat gives the same
+ * pixels as warp-then-crop, but only the requested square is ever computed.
+ */
+public class SquareCropper {
+
+    private final BoardGeometry geometry;
+    private final Mat boardMatrix;
+    private final Mat noDelta = new Mat(); // gemm's unused src3, only ever read
+
+    public SquareCropper(Point[] outerCorners) {
+        this(outerCorners, BoardGeometry.FULL);
+    }
+
+    public SquareCropper(Point[] outerCorners, BoardGeometry geometry) {
+        this.geometry = geometry;
+        this.boardMatrix = BoardWarp.standardMatrix(outerCorners, geometry);
+    }
+
+    /** Extended crop for a visual row/col (row 0 = top of the warped board). */
+    public Mat crop(Mat frame, int row, int col) {
+        Rect region = geometry.extendedSquareRect(row, col);
+        Mat matrix = regionMatrix(region);
+        Mat dst = new Mat();
+        Imgproc.warpPerspective(frame, dst, matrix, new Size(region.width, region.height));
+        matrix.release();
+        return dst;
+    }
+
+    /** Same crop getSquareForModel would cut from a full warp (logical rank 0 = White side). */
+    public Mat cropForModel(Mat frame, int logicalRank, int logicalFile) {
+        return crop(frame, 7 - logicalRank, logicalFile);
+    }
+
+    // shift(-x, -y) * boardMatrix: warped-board coordinates relative to the region's corner
+    private Mat regionMatrix(Rect region) {
+        Mat shift = Mat.eye(3, 3, CvType.CV_64F);
+        shift.put(0, 2, -region.x);
+        shift.put(1, 2, -region.y);
+
+        Mat combined = new Mat();
+        Core.gemm(shift, boardMatrix, 1, noDelta, 0, combined);
+        shift.release();
+        return combined;
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    public void release() {
+        boardMatrix.release();
+        noDelta.release();
+    }
+}
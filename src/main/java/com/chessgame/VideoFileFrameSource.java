@@ -0,0 +1,56 @@
+package com.chessgame;
+
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Replays a recorded video, by default at the frame rate stored in the file.
+ */
+public class VideoFileFrameSource extends ReplayFrameSource {
+
+    private final String path;
+    private VideoCapture capture;
+
+    /** Replays at the file's native frame rate (falls back to 30 fps if the container doesn't say). */
+    public VideoFileFrameSource(String path) {
+        this(path, nativeFps(path));
+    }
+
+    /** @param fps replay rate, or AS_FAST_AS_POSSIBLE */
+    public VideoFileFrameSource(String path, double fps) {
+        super(fps);
+        this.path = path;
+    }
+
+    @Override
+    public boolean open() {
+        capture = new VideoCapture(path);
+        finished = !capture.isOpened();
+        return capture.isOpened();
+    }
+
+    @Override
+    protected boolean readNext(Mat dst) {
+        return capture != null && capture.read(dst);
+    }
+
+    @Override
+    public void close() {
+        if (capture != null) {
+            capture.release();
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "video " + path + " (" + describeRate(getFramePeriodNanos()) + ")";
+    }
+
+    private static double nativeFps(String path) {
+        VideoCapture probe = new VideoCapture(path);
+        double fps = probe.isOpened() ? probe.get(Videoio.CAP_PROP_FPS) : 0;
+        probe.release();
+        return fps > 0 ? fps : 30.0;
+    }
+}
@@ -0,0 +1,279 @@
+package com.chessgame;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+
+import java.util.Arrays;
+
+
+/**
+ * The UI-free half of the realtime game: warp the calibrated board out of a frame and
+ * compare it with the last accepted position. GamePlay drives it from the game loop,
+ * ReplayPipeline drives it headless from a recorded FrameSource.
+ */
+public class VisionPipeline {
+
+    private final BoardGeometry detectionGeometry;
+    private final ChangeDetector changeDetector; // detection thread only, like warp()
+
+    // Written on calibration / lock-in (FX or worker thread), read by the game loop.
+    // A replaced warp/cropper is released under boardLock, which off-thread warps also take.
+    private volatile BoardWarp boardWarp;
+    private volatile SquareCropper squareCropper; // full-res classifier crops, per square
+    private volatile ReferenceBoard reference; // built once, then updated in place
+    private Point[] boardMeasured; // where the tracker last saw the board; guarded by boardLock
+
+    // Running average the reference is rebuilt from on static frames; null = frozen snapshot.
+    // Guarded by referenceLock together with every reference update and every detection.
+    private final BackgroundModel background;
+    private final Object referenceLock = new Object();
+    private final Object boardLock = new Object();
+
+    // Tracked corners must move this far (full-frame px) before the warp maps are rebuilt;
+    // DRIFT re-measures sub-pixel corners every pass, and a fraction of a pixel is invisible
+    // in the detection warp
+    private static final double REWARP_EPSILON = 0.5;
+
+    // Reused by warp(); only the detection thread may call it
+    private final Mat loopWarped = new Mat();
+    private CornerTracker.Anchor loopAnchor; // corners loopWarped was made with
+
+    // Follows the outer corners between calibrations; detection thread only, like warp()
+    private final CornerTracker cornerTracker = new CornerTracker();
+
+    /**
+     * Detection width from -Dchess.detectionResolution (default 256 px), background weight from
+     * -Dchess.backgroundAlpha (default 0 = off, the reference stays frozen until the next move;
+     * e.g. 0.05 blends static frames in, at the cost of a reference rebuild per quiet pass).
+     */
+    public VisionPipeline() {
+        this(Integer.getInteger("chess.detectionResolution", BoardGeometry.DEFAULT_DETECTION_WIDTH));
+    }
+
+    /**
+     * @param detectionWidth width of the warp used for the per-tick diff. Change detection only
+     *                       needs per-square means, so it runs on a small, sky-less warp; the
+     *                       classifier still gets full-resolution crops via squareForModel.
+     */
+    public VisionPipeline(int detectionWidth) {
+        this.detectionGeometry = BoardGeometry.detection(detectionWidth);
+        this.changeDetector = ChangeDetector.create(detectionGeometry);
+        double alpha = Double.parseDouble(System.getProperty("chess.backgroundAlpha", "0"));
+        this.background = alpha > 0 ? new BackgroundModel(alpha) : null;
+    }
+
+    /**
+     * Stores the board geometry and takes the given frame as the starting position. The learned
+     * noise thresholds start over too, so call this before the detection loop runs.
+     */
+    public void calibrate(Point[] corners, Mat frame) {
+        moveBoard(corners, corners);
+        cornerTracker.reset(corners, frame);
+        lockInFrame(frame);
+        changeDetector.getThresholds().reset();
+    }
+
+    /**
+     * The board was found again at new corners, e.g. after the tracker lost it. Only the
+     * geometry changes: the reference and thresholds are in board space and stay valid, so a
+     * move made while the board was being re-found is still seen. Detection thread only.
+     */
+    public void relocate(Point[] corners, Mat frame) {
+        moveBoard(corners, corners);
+        cornerTracker.reset(corners, frame);
+    }
+
+    /**
+     * Follows the board corners into this frame and moves the warp along when the tracker's
+     * corners moved by more than REWARP_EPSILON, or back to the reference's exact corners once
+     * STEADY again (see CornerTracker for the outcomes). Call before warp(). Detection thread only.
+     */
+    public CornerTracker.Status trackBoard(Mat frame) {
+        CornerTracker.Status status = cornerTracker.update(frame);
+        if (status == CornerTracker.Status.STEADY || status == CornerTracker.Status.DRIFT) {
+            Point[] corners = cornerTracker.getCorners();
+            Point[] current = boardWarp.getCorners();
+            // STEADY snaps back to the reference's exact corners (at most one rebuild)
+            boolean moved = status == CornerTracker.Status.STEADY
+                    ? !Arrays.equals(corners, current)
+                    : maxDistance(corners, current) > REWARP_EPSILON;
+            Point[] measured = cornerTracker.getMeasured();
+            if (moved) {
+                moveBoard(corners, measured);
+            } else {
+                synchronized (boardLock) {
+                    boardMeasured = measured;
+                }
+            }
+        }
+        return status;
+    }
+
+    private static double maxDistance(Point[] a, Point[] b) {
+        double max = 0;
+        for (int i = 0; i < a.length; i++) {
+            max = Math.max(max, Math.hypot(a[i].x - b[i].x, a[i].y - b[i].y));
+        }
+        return max;
+    }
+
+    private void moveBoard(Point[] corners, Point[] measured) {
+        BoardWarp newWarp = new BoardWarp(corners, detectionGeometry);
+        SquareCropper newCropper = new SquareCropper(corners);
+        synchronized (boardLock) {
+            BoardWarp oldWarp = boardWarp;
+            SquareCropper oldCropper = squareCropper;
+            this.boardWarp = newWarp;
+            this.squareCropper = newCropper;
+            this.boardMeasured = measured;
+            if (oldWarp != null) oldWarp.release();
+            if (oldCropper != null) oldCropper.release();
+        }
+    }
+
+    public boolean isCalibrated() {
+        return boardWarp != null && reference != null;
+    }
+
+    /**
+     * Warps into a buffer that is reused on every call, so the result is only valid until
+     * the next warp(). Meant for the single detection thread; hand it to acceptReference
+     * (which copies) or clone it if it has to outlive the tick.
+     */
+    public Mat warp(Mat frame) {
+        synchronized (boardLock) {
+            boardWarp.warp(frame, loopWarped);
+            loopAnchor = currentAnchor();
+        }
+        return loopWarped;
+    }
+
+    /**
+     * The corners the last warp() was made with; keep it next to a copy of that warp and pass
+     * both to acceptReference. Detection thread only, like warp().
+     */
+    public CornerTracker.Anchor getWarpAnchor() {
+        return loopAnchor;
+    }
+
+    // Caller holds boardLock
+    private CornerTracker.Anchor currentAnchor() {
+        return new CornerTracker.Anchor(boardWarp.getCorners(), boardMeasured);
+    }
+
+    /** Re-takes the reference from a raw frame, e.g. after an undo. Safe from any thread. */
+    public void resetReference(Mat frame) {
+        lockInFrame(frame);
+    }
+
+    /**
+     * Full-resolution classifier crop of one square (logical rank 0 = White side), warped
+     * straight from the raw frame. Same pixels as getSquareForModel on an 800 px warp.
+     */
+    public Mat squareForModel(Mat frame, int logicalRank, int logicalFile) {
+        return squareCropper.cropForModel(frame, logicalRank, logicalFile);
+    }
+
+    /** Scores and changed squares between the accepted position and this (already warped) frame. */
+    public ChangeReport detectChanges(Mat currentWarped) {
+        synchronized (referenceLock) {
+            return changeDetector.detect(reference, currentWarped);
+        }
+    }
+
+    /**
+     * Report from a frame that turned out to hold no move (no change, or rejected as noise);
+     * the detector learns its per-square noise from these. Detection thread only.
+     */
+    public void observeIdle(ChangeReport report) {
+        changeDetector.observeIdle(report);
+    }
+
+    /**
+     * Lock in a warped frame as the new "before" image, e.g. after a move was accepted.
+     * Its blur/edge features are computed here, once, instead of on every following tick.
+     * The pixels are copied into the reference's own Mats, so passing the reused warp() buffer
+     * is fine. The anchor is getWarpAnchor() from the tick that made the warp, so a board that
+     * drifted since is measured from where it was in this image.
+     */
+    public void acceptReference(Mat warped, CornerTracker.Anchor anchor) {
+        lockIn(warped, anchor);
+    }
+
+    /**
+     * Blends a frame that was static and showed no change into the background model and
+     * rebuilds the reference from it in place, so illumination drift never piles up into false
+     * changes. No-op when the background model is off. Detection thread only.
+     */
+    public void absorbStatic(Mat currentWarped) {
+        if (background == null) return;
+        synchronized (referenceLock) {
+            changeDetector.updateReference(reference, background.update(currentWarped));
+            cornerTracker.anchor(loopAnchor);
+        }
+    }
+
+    /** True when static frames are blended into the reference (-Dchess.backgroundAlpha > 0). */
+    public boolean hasBackgroundModel() {
+        return background != null;
+    }
+
+    private void lockInFrame(Mat frame) {
+        Mat warped;
+        CornerTracker.Anchor anchor;
+        synchronized (boardLock) {
+            warped = boardWarp.warp(frame);
+            anchor = currentAnchor();
+        }
+        lockIn(warped, anchor);
+        warped.release();
+    }
+
+    private void lockIn(Mat warped, CornerTracker.Anchor anchor) {
+        synchronized (referenceLock) {
+            if (background != null) background.reset(warped);
+            if (reference == null) {
+                this.reference = changeDetector.createReference(warped);
+            } else {
+                changeDetector.updateReference(reference, warped);
+            }
+            cornerTracker.anchor(anchor);
+        }
+    }
+
+    /**
+     * The reference image for display. It is updated in place, so a reader on another thread
+     * may catch a half-updated image; copy it right away (FramePresenter.show does).
+     */
+    public Mat getReferenceWarped() {
+        ReferenceBoard r = reference;
+        return r == null ? null : r.getWarped();
+    }
+
+    public ReferenceBoard getReference() {
+        return reference;
+    }
+
+    public Point[] getBoardCorners() {
+        BoardWarp w = boardWarp;
+        return w == null ? null : w.getCorners();
+    }
+
+    /** Released once the board moves again; detection thread only, like warp(). */
+    public BoardWarp getBoardWarp() {
+        return boardWarp;
+    }
+
+    /** For drift listeners; the pipeline itself already follows every move. */
+    public CornerTracker getCornerTracker() {
+        return cornerTracker;
+    }
+
+    public ChangeDetector getChangeDetector() {
+        return changeDetector;
+    }
+
+    public BoardGeometry getDetectionGeometry() {
+        return detectionGeometry;
+    }
+}
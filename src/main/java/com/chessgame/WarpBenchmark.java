@@ -0,0 +1,126 @@
+package com.chessgame;
+
+import nu.pattern.OpenCV;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.imgcodecs.Imgcodecs;
+
+/**
+ * Compares the per-tick warp paths on a real test image:
+ *   legacy  - ChessMoveLogic.warpBoardStandardized (new matrix + new Mat every call)
+ *   remap   - BoardWarp with precomputed fixed-point maps, warping into one reused Mat
+ * and, for classifier crops, full warp + getSquareForModel against SquareCropper.
+ *
+ * Usage: WarpBenchmark [image] [iterations]
+ */
+public class WarpBenchmark {
+
+    static {
+        OpenCV.loadLocally();
+    }
+
+    public static void main(String[] args) {
+        String path = args.length > 0 ? args[0] : "src/main/resources/tests/dr/drstart.jpg";
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        Mat frame = Imgcodecs.imread(path);
+        if (frame.empty()) {
+            System.err.println("Could not read " + path);
+            return;
+        }
+        Point[] corners = BoardDetector.findBoardCorners(frame, frame.clone());
+        if (corners == null) {
+            System.err.println("Could not detect the board in " + path);
+            return;
+        }
+        System.out.println("=== WARP BENCHMARK: " + path + " (" + frame.width() + "x" + frame.height()
+                + "), " + iterations + " iterations ===");
+
+        long t0 = System.nanoTime();
+        BoardWarp boardWarp = new BoardWarp(corners);
+        long setupNanos = System.nanoTime() - t0;
+
+        LatencyStats legacy = new LatencyStats("legacy warpPerspective", iterations);
+        LatencyStats remap = new LatencyStats("BoardWarp remap", iterations);
+        Mat reused = new Mat();
+        try {
+            // Warm up both paths (JIT, OpenCV thread pool) before measuring
+            for (int i = 0; i < 20; i++) {
+                ChessMoveLogic.warpBoardStandardized(frame, corners).release();
+                boardWarp.warp(frame, reused);
+            }
+
+            for (int i = 0; i < iterations; i++) {
+                long a = System.nanoTime();
+                Mat warped = ChessMoveLogic.warpBoardStandardized(frame, corners);
+                long b = System.nanoTime();
+                boardWarp.warp(frame, reused);
+                long c = System.nanoTime();
+                legacy.record(b - a);
+                remap.record(c - b);
+                warped.release();
+            }
+
+            // Both paths should produce (nearly) the same pixels
+            Mat reference = ChessMoveLogic.warpBoardStandardized(frame, corners);
+            Mat diff = new Mat();
+            Core.absdiff(reference, reused, diff);
+            double maxDiff = Core.minMaxLoc(diff.reshape(1)).maxVal;
+            double meanDiff = Core.mean(diff.reshape(1)).val[0];
+
+            System.out.printf("BoardWarp setup (matrix + maps): %.2f ms%n", setupNanos / 1e6);
+            System.out.println(legacy.summary());
+            System.out.println(remap.summary());
+            System.out.printf("Speedup (mean): %.2fx%n", legacy.meanMillis() / remap.meanMillis());
+            System.out.printf("Pixel difference: max %.0f, mean %.4f%n", maxDiff, meanDiff);
+        } finally {
+            boardWarp.release();
+        }
+
+        benchmarkSquareCrops(frame, corners, iterations);
+    }
+
+    /** One promotion-style crop: the whole 800 px warp + crop vs warping only that square. */
+    private static void benchmarkSquareCrops(Mat frame, Point[] corners, int iterations) {
+        SquareCropper cropper = new SquareCropper(corners);
+        LatencyStats viaWarp = new LatencyStats("crop via full warp", iterations);
+        LatencyStats direct = new LatencyStats("SquareCropper crop", iterations);
+
+        for (int i = 0; i < iterations; i++) {
+            int rank = i % 8;
+            int file = (i / 8) % 8;
+            long a = System.nanoTime();
+            Mat warped = ChessMoveLogic.warpBoardStandardized(frame, corners);
+            Mat expected = ChessMoveLogic.getSquareForModel(warped, rank, file);
+            long b = System.nanoTime();
+            Mat crop = cropper.cropForModel(frame, rank, file);
+            long c = System.nanoTime();
+            viaWarp.record(b - a);
+            direct.record(c - b);
+            warped.release();
+            expected.release();
+            crop.release();
+        }
+
+        // Same pixels on every square?
+        Mat warped = ChessMoveLogic.warpBoardStandardized(frame, corners);
+        double worst = 0;
+        Mat diff = new Mat();
+        for (int rank = 0; rank < 8; rank++) {
+            for (int file = 0; file < 8; file++) {
+                Mat expected = ChessMoveLogic.getSquareForModel(warped, rank, file);
+                Mat crop = cropper.cropForModel(frame, rank, file);
+                Core.absdiff(expected, crop, diff);
+                worst = Math.max(worst, Core.minMaxLoc(diff.reshape(1)).maxVal);
+                expected.release();
+                crop.release();
+            }
+        }
+
+        System.out.println(viaWarp.summary());
+        System.out.println(direct.summary());
+        System.out.printf("Speedup (mean): %.2fx, max pixel difference over 64 squares: %.0f%n",
+                viaWarp.meanMillis() / direct.meanMillis(), worst);
+    }
+}
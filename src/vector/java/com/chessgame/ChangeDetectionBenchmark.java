@@ -0,0 +1,168 @@
+package com.chessgame;
+
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Times the change-detection backends on two consecutive test images:
+ *   square   - SquareChangeDetector, 64 per-square blur/Canny/diff rounds, reused workspace
+ *   integral - IntegralChangeDetector, one full-board pass + integral-image lookups
+ *   vector   - VectorChangeDetector, full-board blur/Canny, then SIMD diff sums in Java
+ *              (only when the JVM runs with --add-modules jdk.incubator.vector)
+ * each with the reference features rebuilt every tick (the old behaviour) and with a cached
+ * ReferenceBoard, as the game loop runs it.
+ * Scoring is timed on its own (detect() also writes the debug heatmap, which would dominate),
+ * and the reused detectors must allocate nothing in steady state.
+ *
+ * Usage: ChangeDetectionBenchmark [before] [after] [iterations]
+ */
+public class ChangeDetectionBenchmark {
+
+    static {
+        OpenCV.loadLocally();
+    }
+
+    public static void main(String[] args) {
+        String beforePath = args.length > 0 ? args[0] : "src/main/resources/tests/dr/drhamle1.jpg";
+        String afterPath = args.length > 1 ? args[1] : "src/main/resources/tests/dr/drhamle2.jpg";
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        Mat before = Imgcodecs.imread(beforePath);
+        Mat after = Imgcodecs.imread(afterPath);
+        if (before.empty() || after.empty()) {
+            System.err.println("Could not read " + beforePath + " / " + afterPath);
+            return;
+        }
+        Point[] corners = BoardDetector.findBoardCorners(before, before.clone());
+        if (corners == null) {
+            System.err.println("Could not detect the board in " + beforePath);
+            return;
+        }
+
+        BoardGeometry geometry = BoardGeometry.detection(
+                Integer.getInteger("chess.detectionResolution", BoardGeometry.DEFAULT_DETECTION_WIDTH));
+        Mat warpedBefore;
+        Mat warpedAfter;
+        BoardWarp boardWarp = new BoardWarp(corners, geometry);
+        try {
+            warpedBefore = boardWarp.warp(before);
+            warpedAfter = boardWarp.warp(after);
+        } finally {
+            boardWarp.release();
+        }
+
+        System.out.println("=== CHANGE DETECTION BENCHMARK: " + geometry.getWidth() + " px, "
+                + iterations + " iterations ===");
+
+        List<Backend> backends = new ArrayList<>();
+        backends.add(new Backend("square", new SquareChangeDetector(geometry), iterations));
+        backends.add(new Backend("integral", new IntegralChangeDetector(geometry), iterations));
+        try {
+            backends.add(new Backend("vector", new VectorChangeDetector(geometry), iterations));
+            System.out.println("Vector API: " + VectorChangeDetector.lanes() + " int lanes");
+        } catch (LinkageError e) {
+            System.out.println("Vector API not available, run with --add-modules jdk.incubator.vector");
+        }
+        for (Backend b : backends) b.reference = b.detector.createReference(warpedBefore);
+
+        // The detectors print per-square debug lines; keep them out of the timings
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (Backend b : backends) {
+                for (int i = 0; i < 10; i++) b.detector.detect(b.reference, warpedAfter);
+                b.warmupAllocations = b.detector.getAllocationCount();
+            }
+            // Interleaved, so drift in machine load hits every backend alike
+            for (int i = 0; i < iterations; i++) {
+                for (Backend b : backends) {
+                    b.rebuilt.record(timeRebuilt(b.detector, warpedBefore, warpedAfter));
+                    b.cached.record(timeCached(b.detector, b.reference, warpedAfter));
+                }
+            }
+            for (Backend b : backends) b.changes = b.detector.detect(b.reference, warpedAfter).squares();
+        } finally {
+            System.setOut(out);
+        }
+
+        Backend square = backends.get(0);
+        for (Backend b : backends) {
+            System.out.println(b.rebuilt.summary());
+            System.out.println(b.cached.summary());
+        }
+        for (Backend b : backends) {
+            System.out.printf("%-8s changes %s%s | cached reference speedup %.2fx | vs square %.2fx"
+                            + " | max score diff vs square: intensity %.2f, edge %.2f%n",
+                    b.name, b.changes, b.changes.equals(square.changes) ? "" : " (MISMATCH)",
+                    b.rebuilt.meanMillis() / b.cached.meanMillis(),
+                    square.cached.meanMillis() / b.cached.meanMillis(),
+                    maxDifference(square.detector.lastIntensityScores(), b.detector.lastIntensityScores()),
+                    maxDifference(square.detector.lastEdgeScores(), b.detector.lastEdgeScores()));
+        }
+        if (backends.size() > 2) {
+            Backend integral = backends.get(1);
+            Backend vector = backends.get(2);
+            boolean identical = Arrays.equals(integral.detector.lastIntensityScores(), vector.detector.lastIntensityScores())
+                    && Arrays.equals(integral.detector.lastEdgeScores(), vector.detector.lastEdgeScores());
+            System.out.printf("Vector vs integral: %.2fx, scores %s%n",
+                    integral.cached.meanMillis() / vector.cached.meanMillis(),
+                    identical ? "identical" : "DIFFER");
+        }
+        for (Backend b : backends) reportAllocations(b, iterations);
+    }
+
+    private static final class Backend {
+        final String name;
+        final ChangeDetector detector;
+        final LatencyStats rebuilt;
+        final LatencyStats cached;
+        ReferenceBoard reference;
+        long warmupAllocations;
+        List<String> changes;
+
+        Backend(String name, ChangeDetector detector, int iterations) {
+            this.name = name;
+            this.detector = detector;
+            this.rebuilt = new LatencyStats(name + ", reference rebuilt", iterations);
+            this.cached = new LatencyStats(name + ", cached reference", iterations);
+        }
+    }
+
+    private static long timeRebuilt(ChangeDetector detector, Mat warpedBefore, Mat warpedAfter) {
+        long start = System.nanoTime();
+        ReferenceBoard reference = detector.createReference(warpedBefore);
+        detector.scoreOnly(reference, warpedAfter);
+        long elapsed = System.nanoTime() - start;
+        reference.release();
+        return elapsed;
+    }
+
+    private static long timeCached(ChangeDetector detector, ReferenceBoard reference, Mat warpedAfter) {
+        long start = System.nanoTime();
+        detector.scoreOnly(reference, warpedAfter);
+        return System.nanoTime() - start;
+    }
+
+    private static double maxDifference(double[] a, double[] b) {
+        double max = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (!Double.isNaN(a[i]) && !Double.isNaN(b[i])) max = Math.max(max, Math.abs(a[i] - b[i]));
+        }
+        return max;
+    }
+
+    private static void reportAllocations(Backend b, int iterations) {
+        long steadyState = b.detector.getAllocationCount() - b.warmupAllocations;
+        System.out.println(b.detector.getClass().getSimpleName() + " allocations: " + b.warmupAllocations
+                + " during warm-up, " + steadyState + " over " + iterations + " steady-state calls"
+                + (steadyState == 0 ? " (allocation-free)" : " (!)"));
+    }
+}
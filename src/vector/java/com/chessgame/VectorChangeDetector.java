@@ -0,0 +1,145 @@
+package com.chessgame;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.util.Arrays;
+
+/**
+ * Whole-board scoring like IntegralChangeDetector, but the diff/sum half runs in plain Java on
+ * SIMD lanes (jdk.incubator.vector) instead of five more OpenCV calls and 32 integral-row
+ * copies.
+ *
+ * Per tick OpenCV still does gray, blur and Canny over the playing area (3 calls, shared with
+ * the integral backend through AreaChangeDetector); the blurred area and its edge map are then
+ * pulled into reused byte[]s with one get() each. A single pass over the area rows widens both
+ * byte maps to int lanes and accumulates |ref - cur| per column for intensity and edges side by
+ * side; each square then adds up its columns. The reference's bytes are pulled once per
+ * ReferenceBoard update. Canny stays in OpenCV so the edge score, and thus the thresholds, are
+ * exactly those of the integral backend.
+ *
+ * Needs --add-modules jdk.incubator.vector at compile and run time, so it lives in the vector
+ * source set; only that set's compile, changeBenchmark and a run with
+ * -Dchess.changeDetector=vector get the flag. ChangeDetector.create falls back to the integral
+ * backend when this class or the module is missing.
+ */
+public class VectorChangeDetector extends AreaChangeDetector {
+
+    // Widened lanes; byte loads use the same lane count (16 on AVX-512, 8 on AVX2)
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED.length() >= 8
+            ? IntVector.SPECIES_PREFERRED : IntVector.SPECIES_256;
+    private static final VectorSpecies<Byte> BYTES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(INTS.length() * Byte.SIZE));
+
+    // Area pixels, row-major with stride area.width
+    private byte[] curBlur = new byte[0];
+    private byte[] curEdges = new byte[0];
+    private byte[] refBlur = new byte[0];
+    private byte[] refEdges = new byte[0];
+    private ReferenceBoard pulledReference; // whose bytes refBlur/refEdges hold
+    private int pulledVersion;
+
+    // Column sums of one rank of squares
+    private int[] intensityColumns = new int[0];
+    private int[] edgeColumns = new int[0];
+
+    public VectorChangeDetector(BoardGeometry geometry) {
+        super(geometry);
+    }
+
+    /** Lanes per vector step, for the benchmark output. */
+    public static int lanes() {
+        return INTS.length();
+    }
+
+    @Override
+    protected void score(ReferenceBoard reference, Mat warpedAfter, double[] intensity, double[] edge) {
+        if (reference.blurred[0] == null || !containsArea(warpedAfter)) {
+            return; // warp doesn't contain the board, every score stays NaN
+        }
+
+        computeAreaFeatures(warpedAfter);
+
+        int pixels = area.width * area.height;
+        if (curBlur.length != pixels) {
+            curBlur = new byte[pixels];
+            curEdges = new byte[pixels];
+            refBlur = new byte[pixels];
+            refEdges = new byte[pixels];
+            pulledReference = null;
+            intensityColumns = new int[area.width];
+            edgeColumns = new int[area.width];
+        }
+        blurAfter.get(0, 0, curBlur);
+        edgesAfter.get(0, 0, curEdges);
+        if (reference != pulledReference || reference.version != pulledVersion) {
+            // One copy per reference and in-place update is enough
+            reference.blurred[0].get(0, 0, refBlur);
+            reference.edges[0].get(0, 0, refEdges);
+            pulledReference = reference;
+            pulledVersion = reference.version;
+        }
+
+        for (int row = 0; row < 8; row++) {
+            Rect rank = strictRects[row * 8]; // all squares of a rank share their rows
+            sumColumns(rank.y - area.y, rank.height);
+            for (int col = 0; col < 8; col++) {
+                int sq = row * 8 + col;
+                Rect r = strictRects[sq];
+                int x1 = r.x - area.x;
+                int intensitySum = 0;
+                int edgeSum = 0;
+                for (int x = x1; x < x1 + r.width; x++) {
+                    intensitySum += intensityColumns[x];
+                    edgeSum += edgeColumns[x];
+                }
+                double count = (double) r.width * r.height;
+                intensity[sq] = intensitySum / count;
+                edge[sq] = edgeSum / count;
+            }
+        }
+    }
+
+    /**
+     * Per-column sums of |ref - cur| for both maps over rows [y, y + height), across the whole
+     * area width. Full rows keep every vector step full; a square is ~28 px wide at 256 px,
+     * which would leave half of each row to a scalar tail.
+     */
+    private void sumColumns(int y, int height) {
+        int width = area.width;
+        Arrays.fill(intensityColumns, 0);
+        Arrays.fill(edgeColumns, 0);
+        int bound = BYTES.loopBound(width);
+
+        for (int row = y; row < y + height; row++) {
+            int offset = row * width;
+            int i = 0;
+            for (; i < bound; i += BYTES.length()) {
+                IntVector.fromArray(INTS, intensityColumns, i)
+                        .add(absDiff(refBlur, curBlur, offset + i))
+                        .intoArray(intensityColumns, i);
+                IntVector.fromArray(INTS, edgeColumns, i)
+                        .add(absDiff(refEdges, curEdges, offset + i))
+                        .intoArray(edgeColumns, i);
+            }
+            for (; i < width; i++) {
+                intensityColumns[i] += Math.abs((refBlur[offset + i] & 0xFF) - (curBlur[offset + i] & 0xFF));
+                edgeColumns[i] += Math.abs((refEdges[offset + i] & 0xFF) - (curEdges[offset + i] & 0xFF));
+            }
+        }
+    }
+
+    // Bytes are unsigned pixels: sign-extend to int lanes, then mask back to 0..255
+    private static IntVector absDiff(byte[] a, byte[] b, int offset) {
+        IntVector va = ((IntVector) ByteVector.fromArray(BYTES, a, offset)
+                .convertShape(VectorOperators.B2I, INTS, 0)).and(0xFF);
+        IntVector vb = ((IntVector) ByteVector.fromArray(BYTES, b, offset)
+                .convertShape(VectorOperators.B2I, INTS, 0)).and(0xFF);
+        return va.sub(vb).abs();
+    }
+}